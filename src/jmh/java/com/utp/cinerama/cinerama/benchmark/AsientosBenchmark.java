@@ -0,0 +1,79 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.utp.cinerama.cinerama.model.Asiento;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.repository.AsientoRepository;
+import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import com.utp.cinerama.cinerama.service.MetricasNegocio;
+import com.utp.cinerama.cinerama.service.MotorAsientos;
+import com.utp.cinerama.cinerama.service.impl.AsientoServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+/**
+ * 🏗️ Generación del mapa de asientos de una función (AsientoServiceImpl.generarAsientosParaFuncion)
+ *
+ * Los repositorios son stubs sin estado: se mide la distribución, la construcción de entidades
+ * y el registro en el motor de asientos, no la BD
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AsientosBenchmark {
+
+    @Param({"120", "210"})
+    private int capacidad;
+
+    private AsientoServiceImpl asientoService;
+    private Funcion funcion;
+
+    @Setup
+    public void preparar() {
+        funcion = DatosBenchmark.funcion(1L, capacidad);
+
+        FuncionRepository funcionRepository = Mockito.mock(FuncionRepository.class, Mockito.withSettings().stubOnly());
+        AsientoRepository asientoRepository = Mockito.mock(AsientoRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(funcionRepository.findById(anyLong())).thenReturn(Optional.of(funcion));
+        Mockito.when(asientoRepository.findByFuncionIdOrderByFilaAscNumeroAsc(anyLong())).thenReturn(List.of());
+
+        // saveAll asigna IDs como lo haría IDENTITY
+        AtomicLong secuencia = new AtomicLong();
+        Mockito.when(asientoRepository.saveAll(anyList())).thenAnswer(invocacion -> {
+            List<Asiento> asientos = invocacion.getArgument(0);
+            asientos.forEach(asiento -> asiento.setId(secuencia.incrementAndGet()));
+            return asientos;
+        });
+
+        MetricasNegocio metricas = new MetricasNegocio(new SimpleMeterRegistry(), 50, Duration.ofMinutes(15));
+        MotorAsientos motorAsientos = new MotorAsientos(asientoRepository, funcionRepository,
+                Mockito.mock(JdbcTemplate.class, Mockito.withSettings().stubOnly()),
+                Mockito.mock(ApplicationEventPublisher.class, Mockito.withSettings().stubOnly()), metricas);
+        asientoService = new AsientoServiceImpl(asientoRepository, funcionRepository, motorAsientos);
+        Mockito.when(funcionRepository.save(any())).thenReturn(funcion);
+    }
+
+    @Benchmark
+    public List<Asiento> generarAsientosParaFuncion() {
+        return asientoService.generarAsientosParaFuncion(funcion.getId());
+    }
+}
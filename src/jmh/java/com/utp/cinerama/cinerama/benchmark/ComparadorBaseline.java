@@ -0,0 +1,127 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 📊 Compara el resultado JSON de JMH contra la línea base versionada (src/jmh/baseline.json)
+ *
+ * Por benchmark (y combinación de @Param) informa la variación de throughput y de bytes asignados
+ * por operación (gc.alloc.rate.norm). Es regresión si el throughput cae o la asignación crece
+ * más que la tolerancia. Para renovar la línea base basta con copiar el resultado sobre ella.
+ *
+ * Uso: ComparadorBaseline baseline.json resultado.json [tolerancia=0.10] [estricto=false]
+ */
+public final class ComparadorBaseline {
+
+    private static final String ASIGNACION = "gc.alloc.rate.norm";
+
+    private ComparadorBaseline() {
+    }
+
+    record Medicion(double throughput, double bytesPorOperacion) {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: ComparadorBaseline <baseline.json> <resultado.json> [tolerancia] [estricto]");
+            System.exit(2);
+        }
+        File baseline = new File(args[0]);
+        File resultado = new File(args[1]);
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        boolean estricto = args.length > 3 && Boolean.parseBoolean(args[3]);
+
+        if (!resultado.exists()) {
+            System.err.println("No existe el resultado de JMH: " + resultado);
+            System.exit(2);
+        }
+        if (!baseline.exists()) {
+            System.out.println("Sin linea base (" + baseline + "): copie " + resultado + " para crearla");
+            return;
+        }
+
+        Map<String, Medicion> base = leer(baseline);
+        Map<String, Medicion> actual = leer(resultado);
+
+        int regresiones = 0;
+        System.out.printf("%n%-70s %14s %9s %12s %9s%n", "Benchmark", "ops/s", "var ops", "B/op", "var B/op");
+        for (Map.Entry<String, Medicion> entrada : actual.entrySet()) {
+            Medicion ahora = entrada.getValue();
+            Medicion antes = base.get(entrada.getKey());
+            if (antes == null) {
+                System.out.printf("%-70s %14.1f %9s %12.1f %9s%n",
+                        entrada.getKey(), ahora.throughput(), "nuevo", ahora.bytesPorOperacion(), "");
+                continue;
+            }
+
+            double deltaThroughput = variacion(antes.throughput(), ahora.throughput());
+            double deltaBytes = variacion(antes.bytesPorOperacion(), ahora.bytesPorOperacion());
+            boolean regresion = deltaThroughput < -tolerancia || deltaBytes > tolerancia;
+            if (regresion) {
+                regresiones++;
+            }
+            System.out.printf("%-70s %14.1f %+8.1f%% %12.1f %+8.1f%% %s%n",
+                    entrada.getKey(), ahora.throughput(), deltaThroughput * 100,
+                    ahora.bytesPorOperacion(), deltaBytes * 100, regresion ? "<< REGRESION" : "");
+        }
+
+        System.out.printf("%n%d regresiones (tolerancia %.0f%%)%n", regresiones, tolerancia * 100);
+        if (regresiones > 0 && estricto) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Clave = nombre del benchmark + parámetros, p. ej. "AsientosBenchmark.generarAsientosParaFuncion{capacidad=210}"
+     */
+    private static Map<String, Medicion> leer(File archivo) throws IOException {
+        Map<String, Medicion> mediciones = new LinkedHashMap<>();
+        for (JsonNode nodo : new ObjectMapper().readTree(archivo)) {
+            String nombre = nodo.path("benchmark").asText();
+            StringBuilder clave = new StringBuilder(nombre.substring(nombre.lastIndexOf('.', nombre.lastIndexOf('.') - 1) + 1));
+            JsonNode params = nodo.path("params");
+            if (params.isObject() && !params.isEmpty()) {
+                clave.append('{');
+                Iterator<Map.Entry<String, JsonNode>> campos = params.fields();
+                while (campos.hasNext()) {
+                    Map.Entry<String, JsonNode> campo = campos.next();
+                    clave.append(campo.getKey()).append('=').append(campo.getValue().asText());
+                    if (campos.hasNext()) {
+                        clave.append(',');
+                    }
+                }
+                clave.append('}');
+            }
+
+            mediciones.put(clave.toString(), new Medicion(
+                    nodo.path("primaryMetric").path("score").asDouble(),
+                    asignacion(nodo.path("secondaryMetrics"))));
+        }
+        return mediciones;
+    }
+
+    // Versiones anteriores de JMH anteponen "·" al nombre de las métricas del profiler
+    private static double asignacion(JsonNode secundarias) {
+        Iterator<Map.Entry<String, JsonNode>> metricas = secundarias.fields();
+        while (metricas.hasNext()) {
+            Map.Entry<String, JsonNode> metrica = metricas.next();
+            if (metrica.getKey().endsWith(ASIGNACION)) {
+                return metrica.getValue().path("score").asDouble();
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double variacion(double antes, double ahora) {
+        if (Double.isNaN(antes) || Double.isNaN(ahora) || antes == 0) {
+            return 0;
+        }
+        return (ahora - antes) / antes;
+    }
+}
@@ -0,0 +1,56 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.model.Sala;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Datos de prueba compartidos por los benchmarks (sin BD ni contexto de Spring)
+ */
+final class DatosBenchmark {
+
+    private DatosBenchmark() {
+    }
+
+    static Funcion funcion(Long id, int capacidad) {
+        Sala sala = new Sala();
+        sala.setId(1L);
+        sala.setNombre("Sala 1");
+        sala.setCapacidad(capacidad);
+        sala.setActiva(true);
+
+        Pelicula pelicula = Pelicula.builder()
+                .id(1L)
+                .titulo("Película de prueba")
+                .genero("Acción, Aventura")
+                .duracion(120)
+                .clasificacion("PG-13")
+                .activa(true)
+                .build();
+
+        Funcion funcion = new Funcion();
+        funcion.setId(id);
+        funcion.setSala(sala);
+        funcion.setPelicula(pelicula);
+        funcion.setFechaHora(LocalDateTime.now().plusDays(1));
+        funcion.setAsientosTotales(capacidad);
+        funcion.setAsientosDisponibles(capacidad);
+        funcion.setPrecioEntrada(new BigDecimal("15.00"));
+        return funcion;
+    }
+
+    /**
+     * Mismo ObjectMapper que arma Spring Boot (módulos JavaTime, fechas ISO-8601)
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+}
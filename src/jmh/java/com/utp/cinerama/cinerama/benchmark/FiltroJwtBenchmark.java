@@ -0,0 +1,60 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.utp.cinerama.cinerama.config.JwtRequestFilter;
+import com.utp.cinerama.cinerama.security.RevocacionTokens;
+import com.utp.cinerama.cinerama.service.MetricasNegocio;
+import com.utp.cinerama.cinerama.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🛡️ Camino completo de JwtRequestFilter para un request autenticado
+ * (extraer header, claims cacheados, revocación, principal desde claims, contexto de seguridad)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FiltroJwtBenchmark {
+
+    private JwtRequestFilter filtro;
+    private String autorizacion;
+
+    @Setup
+    public void preparar() {
+        JwtUtil jwtUtil = new JwtUtil();
+        UserDetailsService usuarios = Mockito.mock(UserDetailsService.class, Mockito.withSettings().stubOnly());
+        filtro = new JwtRequestFilter(usuarios, jwtUtil, new RevocacionTokens(),
+                new MetricasNegocio(new SimpleMeterRegistry(), 50, Duration.ofMinutes(15)));
+        ReflectionTestUtils.setField(filtro, "principalDesdeClaims", true);
+        autorizacion = "Bearer " + jwtUtil.generateToken("cliente@cinerama.pe", "ROLE_CLIENTE");
+    }
+
+    @Benchmark
+    public int filtrarRequestAutenticado() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/boletos/mis-boletos");
+        request.addHeader("Authorization", autorizacion);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filtro.doFilter(request, response, new MockFilterChain());
+            return response.getStatus();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.utp.cinerama.cinerama.service.TMDbService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🎭 Traducción de IDs de género de TMDb a texto (se ejecuta por cada película sincronizada)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GenerosBenchmark {
+
+    private static final List<Integer> IDS = List.of(28, 12, 16, 35, 80, 18, 14, 878);
+
+    @Param({"1", "3", "8"})
+    private int cantidad;
+
+    private TMDbService tmdbService;
+    private List<Integer> generoIds;
+
+    @Setup
+    public void preparar() {
+        tmdbService = new TMDbService(null, null); // mapGenreIdsToNames no usa HTTP ni configuración
+        generoIds = IDS.subList(0, cantidad);
+    }
+
+    @Benchmark
+    public String mapearGeneros() {
+        return tmdbService.mapGenreIdsToNames(generoIds);
+    }
+}
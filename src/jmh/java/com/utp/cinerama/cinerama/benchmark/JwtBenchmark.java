@@ -0,0 +1,66 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.utp.cinerama.cinerama.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔑 Emisión y verificación de tokens (JwtUtil)
+ *
+ * - extraerClaimsCacheado: token ya verificado (camino de cada request autenticado)
+ * - extraerClaimsSinCache: primera verificación (firma HMAC + parseo JSON)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Tokens {
+        JwtUtil jwtUtil;
+        String token;
+
+        @Setup
+        public void preparar() {
+            jwtUtil = new JwtUtil();
+            token = jwtUtil.generateToken("cliente@cinerama.pe", "ROLE_CLIENTE");
+            jwtUtil.extractAllClaims(token);
+        }
+    }
+
+    /**
+     * Un JwtUtil nuevo por invocación: su caché de claims verificados está vacía
+     */
+    @State(Scope.Thread)
+    public static class SinCache {
+        JwtUtil jwtUtil;
+
+        @Setup(Level.Invocation)
+        public void preparar() {
+            jwtUtil = new JwtUtil();
+        }
+    }
+
+    @Benchmark
+    public String generarToken(Tokens tokens) {
+        return tokens.jwtUtil.generateToken("cliente@cinerama.pe", "ROLE_CLIENTE");
+    }
+
+    @Benchmark
+    public Claims extraerClaimsCacheado(Tokens tokens) {
+        return tokens.jwtUtil.extractAllClaims(tokens.token);
+    }
+
+    @Benchmark
+    public Claims extraerClaimsSinCache(Tokens tokens, SinCache sinCache) {
+        return sinCache.jwtUtil.extractAllClaims(tokens.token);
+    }
+}
@@ -0,0 +1,105 @@
+package com.utp.cinerama.cinerama.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO.BoletoResumenDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO.PagoResumenDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO.ProductoResumenDTO;
+import com.utp.cinerama.cinerama.model.Asiento;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 📦 Serialización JSON de las respuestas más frecuentes: mapa de asientos (sala llena, 210)
+ * y confirmación de compra (4 boletos + 2 productos)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SerializacionBenchmark {
+
+    private ObjectMapper objectMapper;
+    private List<Asiento> mapaAsientos;
+    private ConfirmacionCompraDTO confirmacion;
+
+    @Setup
+    public void preparar() {
+        objectMapper = DatosBenchmark.objectMapper();
+
+        Funcion funcion = DatosBenchmark.funcion(1L, 210);
+        mapaAsientos = new ArrayList<>();
+        long id = 0;
+        for (DistribucionAsientos.Posicion posicion : DistribucionAsientos.generar(210)) {
+            id++;
+            mapaAsientos.add(Asiento.builder()
+                    .id(id)
+                    .funcion(funcion)
+                    .fila(posicion.fila())
+                    .numero(posicion.numero())
+                    .tipo(TipoAsiento.NORMAL)
+                    .estado(id % 3 == 0 ? EstadoAsiento.OCUPADO : EstadoAsiento.DISPONIBLE)
+                    .precio(15.0)
+                    .version(0L)
+                    .build());
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<BoletoResumenDTO> boletos = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            boletos.add(BoletoResumenDTO.builder()
+                    .boletoId((long) i)
+                    .pelicula("Película de prueba")
+                    .sala("Sala 1")
+                    .fechaHora(ahora.plusDays(1))
+                    .asiento("F" + i)
+                    .precio(new BigDecimal("15.00"))
+                    .build());
+        }
+        confirmacion = ConfirmacionCompraDTO.builder()
+                .numeroConfirmacion("CIN-20250101-000123")
+                .fechaCompra(ahora)
+                .totalPagado(new BigDecimal("84.00"))
+                .clienteId(1L)
+                .nombreCliente("Cliente de prueba")
+                .boletos(boletos)
+                .productos(List.of(
+                        ProductoResumenDTO.builder().nombreProducto("Canchita grande").cantidad(1)
+                                .precioUnitario(new BigDecimal("14.00")).subtotal(new BigDecimal("14.00")).build(),
+                        ProductoResumenDTO.builder().nombreProducto("Gaseosa").cantidad(1)
+                                .precioUnitario(new BigDecimal("10.00")).subtotal(new BigDecimal("10.00")).build()))
+                .pago(PagoResumenDTO.builder()
+                        .pagoId(1L)
+                        .metodoPago("TARJETA")
+                        .estado("COMPLETADO")
+                        .monto(new BigDecimal("84.00"))
+                        .fechaPago(ahora)
+                        .build())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializarMapaAsientos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(mapaAsientos);
+    }
+
+    @Benchmark
+    public byte[] serializarConfirmacionCompra() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(confirmacion);
+    }
+}
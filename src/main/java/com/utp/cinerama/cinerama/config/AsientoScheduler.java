@@ -1,6 +1,7 @@
 package com.utp.cinerama.cinerama.config;
 
 import com.utp.cinerama.cinerama.service.AsientoService;
+import com.utp.cinerama.cinerama.service.MetricasNegocio;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
@@ -8,9 +9,9 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
 /**
- * ⏰ Scheduler para liberar asientos reservados que expiraron
- * Se ejecuta cada minuto para liberar asientos en estado SELECCIONADO
- * que tienen más de 5 minutos desde su reserva
+ * ⏰ Red de seguridad para reservas expiradas
+ * La liberación normal la hace MotorAsientos en el instante de vencimiento (DelayQueue);
+ * este barrido solo cubre funciones que no están en memoria
  */
 @Configuration
 @EnableScheduling
@@ -19,16 +20,17 @@ import org.springframework.scheduling.annotation.Scheduled;
 public class AsientoScheduler {
 
     private final AsientoService asientoService;
+    private final MetricasNegocio metricas;
 
     /**
-     * 🧹 Tarea programada: Libera asientos expirados cada 1 minuto
-     * Cron expression: segundos minutos horas dia mes dia-semana
-     * "0 * * * * *" = cada minuto exacto (segundo 0)
+     * 🧹 Tarea programada: barrido completo de asientos expirados
+     * Por defecto cada 15 minutos (cinerama.asientos.barrido-expirados-ms)
      */
-    @Scheduled(cron = "0 * * * * *")
+    @Scheduled(fixedDelayString = "${cinerama.asientos.barrido-expirados-ms:900000}",
+               initialDelayString = "${cinerama.asientos.barrido-expirados-ms:900000}")
     public void liberarAsientosExpirados() {
         try {
-            int liberados = asientoService.liberarAsientosExpirados();
+            int liberados = metricas.barridoExpirados(asientoService::liberarAsientosExpirados);
             
             if (liberados > 0) {
                 log.info("🧹 [SCHEDULER] Liberados {} asientos expirados", liberados);
@@ -1,31 +1,112 @@
 package com.utp.cinerama.cinerama.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.utp.cinerama.cinerama.service.TMDbService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
 
 /**
- * Configuración de caché en memoria para endpoints de TMDb
+ * Configuración de caché en memoria (Caffeine) para endpoints de TMDb
  * Reduce llamadas repetitivas a la API externa
- * 
- * Nota: Para TTL automático, agregar dependencia:
- * - spring-boot-starter-cache con Caffeine
- * - O Redis para cache distribuido
+ *
+ * Cada caché tiene su propia especificación (cinerama.cache.*):
+ * - expireAfterWrite: las entradas no quedan obsoletas para siempre
+ * - maximumWeight: límite por cantidad de películas almacenadas (no por páginas)
+ * - refreshAfterWrite: pasado ese tiempo se sigue sirviendo el valor actual
+ *   mientras se recarga en segundo plano desde TMDb (stale-while-revalidate)
+ * Las estadísticas (hits/misses) se exponen en /api/monitoreo/cache y en /actuator/prometheus
+ * (cache.gets de Actuator + tasa de aciertos por caché)
  */
 @Configuration
 public class CacheConfig {
 
+    public static final String TMDB_NOW_PLAYING = "tmdb-now-playing";
+    public static final String TMDB_POPULAR = "tmdb-popular";
+    public static final String TMDB_UPCOMING = "tmdb-upcoming";
+    public static final String TMDB_MOVIE_DETAILS = "tmdb-movie-details";
+
+    // Peso de una entrada = cantidad de elementos de la lista (una página de TMDb ≈ 20 películas)
+    private static final Weigher<Object, Object> PESO_POR_ELEMENTOS =
+            (clave, valor) -> valor instanceof Collection<?> lista ? Math.max(1, lista.size()) : 1;
+
+    @Value("${cinerama.cache.tmdb-now-playing:maximumWeight=2000,expireAfterWrite=30m,refreshAfterWrite=10m}")
+    private String specNowPlaying;
+
+    @Value("${cinerama.cache.tmdb-popular:maximumWeight=2000,expireAfterWrite=30m,refreshAfterWrite=10m}")
+    private String specPopular;
+
+    @Value("${cinerama.cache.tmdb-upcoming:maximumWeight=2000,expireAfterWrite=6h,refreshAfterWrite=1h}")
+    private String specUpcoming;
+
+    @Value("${cinerama.cache.tmdb-movie-details:maximumWeight=5000,expireAfterWrite=24h,refreshAfterWrite=6h}")
+    private String specMovieDetails;
+
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
-                "tmdb-now-playing", 
-                "tmdb-popular", 
-                "tmdb-upcoming"
-        );
-        
-        // Cache almacenado en memoria durante toda la ejecución
-        // Se puede mejorar con @CacheEvict programado o con Caffeine/Redis
+    public CacheManager cacheManager(@Lazy TMDbService tmdbService) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+
+        // Cachés no registradas explícitamente: límite y TTL conservadores
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats());
+
+        registrar(cacheManager, TMDB_NOW_PLAYING, specNowPlaying, tmdbService::fetchNowPlayingMovies);
+        registrar(cacheManager, TMDB_POPULAR, specPopular, tmdbService::fetchPopularMovies);
+        registrar(cacheManager, TMDB_UPCOMING, specUpcoming, tmdbService::fetchUpcomingMovies);
+
+        cacheManager.registerCustomCache(TMDB_MOVIE_DETAILS, Caffeine.from(specMovieDetails)
+                .weigher(PESO_POR_ELEMENTOS)
+                .recordStats()
+                .build(tmdbId -> tmdbService.fetchMovieDetails((Long) tmdbId)));
+
         return cacheManager;
     }
+
+    /**
+     * Tasa de aciertos acumulada de cada caché (0..1; NaN sin consultas), para no tener que calcularla en Prometheus
+     */
+    @Bean
+    public MeterBinder tasaAciertosCache(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(nombre -> {
+            if (cacheManager.getCache(nombre) instanceof CaffeineCache cache) {
+                Gauge.builder("cinerama.cache.tasa.aciertos", cache.getNativeCache(),
+                                c -> c.stats().requestCount() == 0 ? Double.NaN : c.stats().hitRate())
+                        .description("Aciertos / consultas de la caché")
+                        .tag("cache", nombre)
+                        .register(registry);
+            }
+        });
+    }
+
+    /**
+     * Registra una caché de páginas de TMDb con su spec y su función de recarga
+     * Las páginas vacías no se guardan (igual que el "unless" de @Cacheable)
+     */
+    private void registrar(CaffeineCacheManager cacheManager, String nombre, String spec,
+                           Function<Integer, ? extends Collection<?>> consulta) {
+        CacheLoader<Object, Object> recarga = pagina -> {
+            Collection<?> resultado = consulta.apply((Integer) pagina);
+            return resultado == null || resultado.isEmpty() ? null : resultado;
+        };
+
+        cacheManager.registerCustomCache(nombre, Caffeine.from(spec)
+                .weigher(PESO_POR_ELEMENTOS)
+                .recordStats()
+                .build(recarga));
+    }
 }
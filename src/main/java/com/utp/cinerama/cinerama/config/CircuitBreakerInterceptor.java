@@ -0,0 +1,69 @@
+package com.utp.cinerama.cinerama.config;
+
+import com.utp.cinerama.cinerama.util.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ⚡ Circuit breaker por host para las llamadas salientes del RestTemplate
+ * Cuenta como fallo un error de E/S (timeout, conexión rechazada) o una respuesta 5xx/429.
+ * Con el circuito abierto las llamadas fallan al instante en vez de ocupar hilos de Tomcat.
+ */
+@Slf4j
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int umbralFallos;
+    private final Duration apertura;
+    private final Map<String, CircuitBreaker> circuitos = new ConcurrentHashMap<>();
+
+    public CircuitBreakerInterceptor(int umbralFallos, Duration apertura) {
+        this.umbralFallos = umbralFallos;
+        this.apertura = apertura;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost();
+        CircuitBreaker circuito = circuitos.computeIfAbsent(host, h -> new CircuitBreaker(umbralFallos, apertura));
+
+        if (!circuito.permitirLlamada()) {
+            throw new ResourceAccessException("Circuito abierto para " + host + ": servicio externo no disponible");
+        }
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            if (status >= 500 || status == 429) {
+                registrarFallo(host, circuito);
+            } else {
+                circuito.registrarExito();
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            registrarFallo(host, circuito);
+            throw e;
+        }
+    }
+
+    private void registrarFallo(String host, CircuitBreaker circuito) {
+        CircuitBreaker.Estado anterior = circuito.getEstado();
+        circuito.registrarFallo();
+        if (anterior != CircuitBreaker.Estado.ABIERTO && circuito.getEstado() == CircuitBreaker.Estado.ABIERTO) {
+            log.warn("⚡ Circuito ABIERTO para {} tras {} fallos", host, circuito.getFallosConsecutivos());
+        }
+    }
+
+    public Map<String, CircuitBreaker> getCircuitos() {
+        return circuitos;
+    }
+}
@@ -1,7 +1,10 @@
 package com.utp.cinerama.cinerama.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utp.cinerama.cinerama.security.RevocacionTokens;
+import com.utp.cinerama.cinerama.service.MetricasNegocio;
 import com.utp.cinerama.cinerama.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -12,9 +15,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -23,7 +29,10 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -33,8 +42,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
+    private final RevocacionTokens revocacionTokens;
+    private final MetricasNegocio metricas;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    // true: el principal se arma desde los claims verificados (sin consultar la BD en cada request).
+    // Opt-in: los cambios de rol no se ven hasta que el token expira y la revocación no sobrevive reinicios
+    @Value("${jwt.principal-desde-claims:false}")
+    private boolean principalDesdeClaims;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -44,32 +60,39 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // 1. Extraer token del header Authorization o de cookies
         String jwt = extractJwtFromRequest(request);
         String usernameOrEmail = null;
+        Claims claims = null;
 
         // 2. Validar y extraer username del token
         if (jwt != null) {
             try {
-                usernameOrEmail = jwtUtil.extractUsername(jwt);
+                // Una sola verificación de firma por token (JwtUtil cachea los claims verificados)
+                claims = jwtUtil.extractAllClaims(jwt);
+                usernameOrEmail = claims.getSubject();
                 log.debug("🔑 Token JWT detectado para usuario: {}", usernameOrEmail);
             } catch (ExpiredJwtException e) {
                 log.warn("⚠️ Token JWT expirado: {}", e.getMessage());
+                metricas.autenticacionJwt("expirado");
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                     "TOKEN_EXPIRED", 
                     "Tu sesión ha expirado. Por favor, inicia sesión nuevamente.");
                 return;
             } catch (MalformedJwtException e) {
                 log.error("❌ Token JWT malformado: {}", e.getMessage());
+                metricas.autenticacionJwt("malformado");
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                     "TOKEN_INVALID", 
                     "Token inválido. Por favor, inicia sesión nuevamente.");
                 return;
             } catch (SignatureException e) {
                 log.error("❌ Firma de token JWT inválida: {}", e.getMessage());
+                metricas.autenticacionJwt("firma_invalida");
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                     "TOKEN_INVALID_SIGNATURE", 
                     "Token con firma inválida. Por favor, inicia sesión nuevamente.");
                 return;
             } catch (Exception e) {
                 log.error("❌ Error al extraer username del token: {}", e.getMessage());
+                metricas.autenticacionJwt("error");
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                     "TOKEN_ERROR", 
                     "Error al procesar el token. Por favor, inicia sesión nuevamente.");
@@ -81,11 +104,23 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         if (usernameOrEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             
             try {
-                // 4. Cargar detalles del usuario
-                UserDetails userDetails = userDetailsService.loadUserByUsername(usernameOrEmail);
+                // 4. Token revocado (cambio de contraseña o usuario desactivado)
+                if (revocacionTokens.estaRevocado(usernameOrEmail, claims.getIssuedAt())) {
+                    log.warn("⚠️ Token revocado para usuario: {}", usernameOrEmail);
+                    metricas.autenticacionJwt("revocado");
+                    sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
+                        "TOKEN_REVOKED",
+                        "Tu sesión fue cerrada. Por favor, inicia sesión nuevamente.");
+                    return;
+                }
+
+                // Cargar detalles del usuario (desde los claims o desde la BD)
+                UserDetails userDetails = principalDesdeClaims
+                        ? principalDesdeClaims(claims)
+                        : userDetailsService.loadUserByUsername(usernameOrEmail);
 
                 // 5. Validar token (firma + expiración)
-                if (!jwtUtil.isTokenExpired(jwt)) {
+                if (!jwtUtil.isTokenExpired(claims)) {
                     log.info("✅ Token válido para usuario: {}", usernameOrEmail);
 
                     // 6. Crear objeto de autenticación
@@ -103,6 +138,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
                     // 8. Establecer autenticación en el contexto de Spring Security
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    metricas.autenticacionJwt("valido");
                     
                     log.debug("🔐 Usuario autenticado: {} con roles: {}", 
                         usernameOrEmail, 
@@ -110,6 +146,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                     );
                 } else {
                     log.warn("⚠️ Token expirado para usuario: {}", usernameOrEmail);
+                    metricas.autenticacionJwt("expirado");
                     sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                         "TOKEN_EXPIRED", 
                         "Tu sesión ha expirado. Por favor, inicia sesión nuevamente.");
@@ -117,6 +154,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 }
             } catch (Exception e) {
                 log.error("❌ Error al autenticar usuario: {}", e.getMessage());
+                metricas.autenticacionJwt("error");
                 sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, 
                     "AUTH_ERROR", 
                     "Error de autenticación. Por favor, inicia sesión nuevamente.");
@@ -128,6 +166,27 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Arma el principal con el subject y los roles del token ("roles" o, si falta, "rol")
+     */
+    private UserDetails principalDesdeClaims(Claims claims) {
+        List<String> roles = new ArrayList<>();
+        Object claimRoles = claims.get("roles");
+        if (claimRoles instanceof Collection<?> lista) {
+            lista.forEach(rol -> roles.add(String.valueOf(rol)));
+        } else if (claims.get("rol") != null) {
+            roles.add(claims.get("rol").toString());
+        }
+
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(roles.stream()
+                        .filter(rol -> !rol.isBlank())
+                        .map(SimpleGrantedAuthority::new)
+                        .toList())
+                .build();
+    }
+
     /**
      * Envía una respuesta de error JSON al cliente
      */
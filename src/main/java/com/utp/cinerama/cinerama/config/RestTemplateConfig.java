@@ -1,18 +1,118 @@
 package com.utp.cinerama.cinerama.config;
 
+import io.micrometer.common.KeyValue;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Configuración de RestTemplate para consumir APIs externas
+ *
+ * - Pool de conexiones (Apache HttpClient 5) con límite total y por ruta, keep-alive reutilizable
+ * - Timeouts de conexión, de lectura y de espera por una conexión libre del pool
+ * - Respuestas gzip/deflate descomprimidas automáticamente
+ * - Circuit breaker por host: si TMDb falla repetidamente, se corta al instante
+ * Estado del pool y de los circuitos: /api/monitoreo/http-pool
+ * Latencia de cada llamada saliente: http.client.requests en /actuator/prometheus
  */
 @Configuration
 public class RestTemplateConfig {
 
+    @Value("${cinerama.http.max-conexiones:50}")
+    private int maxConexiones;
+
+    @Value("${cinerama.http.max-conexiones-por-ruta:20}")
+    private int maxConexionesPorRuta;
+
+    @Value("${cinerama.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${cinerama.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    @Value("${cinerama.http.pool-timeout-ms:1000}")
+    private long poolTimeoutMs;
+
+    @Value("${cinerama.http.circuit-breaker.fallos:5}")
+    private int fallosParaAbrir;
+
+    @Value("${cinerama.http.circuit-breaker.apertura-ms:30000}")
+    private long aperturaMs;
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public PoolingHttpClientConnectionManager httpConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConexiones)
+                .setMaxConnPerRoute(maxConexionesPorRuta)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerInterceptor circuitBreakerInterceptor() {
+        return new CircuitBreakerInterceptor(fallosParaAbrir, Duration.ofMillis(aperturaMs));
+    }
+
+    /**
+     * Etiqueta "uri" de http.client.requests: solo la ruta, con los IDs como {id}
+     * (las URLs de TMDb se arman completas: sin esto cada query string, api_key incluida,
+     * sería una serie distinta)
+     */
+    @Bean
+    public ClientRequestObservationConvention convencionObservacionHttp() {
+        return new DefaultClientRequestObservationConvention() {
+            @Override
+            protected KeyValue uri(ClientRequestObservationContext context) {
+                if (context.getCarrier() == null) {
+                    return super.uri(context);
+                }
+                String ruta = context.getCarrier().getURI().getPath();
+                return KeyValue.of("uri", ruta == null || ruta.isEmpty() ? "none" : ruta.replaceAll("/\\d+", "/{id}"));
+            }
+        };
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     PoolingHttpClientConnectionManager httpConnectionManager,
+                                     CircuitBreakerInterceptor circuitBreakerInterceptor) {
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        // Si el pool está saturado, fallar rápido en vez de encolar hilos de Tomcat
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+
+        return builder
+                .requestFactory(() -> requestFactory)
+                .additionalInterceptors(circuitBreakerInterceptor)
+                .build();
     }
 }
@@ -79,6 +79,7 @@ public class SecurityConfig {
                         
                         // Películas (consulta pública)
                         .requestMatchers(HttpMethod.GET, "/api/peliculas/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/cartelera").permitAll()
                         
                         
                         .requestMatchers(HttpMethod.GET, "/api/salas/**").permitAll()
@@ -93,6 +94,9 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/asientos/funcion/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/asientos/estadisticas/**").permitAll()
 
+                        // Salud y métricas para el balanceador y Prometheus
+                        .requestMatchers(HttpMethod.GET, "/actuator/health/**", "/actuator/prometheus").permitAll()
+
                         // ========== RUTAS SOLO ADMIN ==========
                         
                         // Gestión de películas
@@ -121,6 +125,10 @@ public class SecurityConfig {
                         // Generación de asientos
                         .requestMatchers(HttpMethod.POST, "/api/asientos/generar/**").hasRole("ADMIN")
 
+                        // Monitoreo interno (cachés, pools, etc.)
+                        .requestMatchers("/api/monitoreo/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // ========== RUTAS AUTENTICADAS (cualquier usuario logueado) ==========
                         
                         // Compra de boletos
@@ -0,0 +1,36 @@
+package com.utp.cinerama.cinerama.config;
+
+import com.utp.cinerama.cinerama.dto.SyncResponseDTO;
+import com.utp.cinerama.cinerama.service.SincronizadorTMDb;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 🌙 Sincronización incremental nocturna con TMDb
+ * Solo procesa las películas del catálogo que cambiaron desde la última ejecución
+ * Se desactiva con cinerama.tmdb.sync.cron=-
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class SincronizacionScheduler {
+
+    private final SincronizadorTMDb sincronizadorTMDb;
+    private final TMDbConfig tmdbConfig;
+
+    @Scheduled(cron = "${cinerama.tmdb.sync.cron:0 0 4 * * *}")
+    public void sincronizarCambios() {
+        if (tmdbConfig.getApiKey() == null || tmdbConfig.getApiKey().isBlank()) {
+            log.debug("[SCHEDULER] TMDb sin API key: se omite la sincronización incremental");
+            return;
+        }
+        try {
+            SyncResponseDTO resultado = sincronizadorTMDb.sincronizarCambios();
+            log.info("🌙 [SCHEDULER] {}", resultado.getMensaje());
+        } catch (Exception e) {
+            log.error("❌ [SCHEDULER] Error en la sincronización incremental con TMDb: {}", e.getMessage());
+        }
+    }
+}
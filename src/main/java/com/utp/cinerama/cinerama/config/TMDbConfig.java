@@ -37,6 +37,10 @@ public class TMDbConfig {
         return baseUrl + "/movie/" + movieId;
     }
 
+    public String getMovieChangesUrl() {
+        return baseUrl + "/movie/changes";
+    }
+
     public String getGenresUrl() {
         return baseUrl + "/genre/movie/list";
     }
@@ -1,14 +1,20 @@
 package com.utp.cinerama.cinerama.controller;
 
+import com.utp.cinerama.cinerama.dto.ReservarAsientosDTO;
 import com.utp.cinerama.cinerama.model.Asiento;
 import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
 import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
 import com.utp.cinerama.cinerama.service.AsientoService;
 import com.utp.cinerama.cinerama.service.AsientoService.EstatisticasAsientos;
+import com.utp.cinerama.cinerama.service.MetricasNegocio;
+import com.utp.cinerama.cinerama.service.TransmisorAsientos;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -19,6 +25,8 @@ import java.util.List;
 public class AsientoController {
 
     private final AsientoService asientoService;
+    private final TransmisorAsientos transmisorAsientos;
+    private final MetricasNegocio metricas;
 
     /**
      * 🗺️ GET /api/asientos/funcion/{funcionId}
@@ -30,6 +38,15 @@ public class AsientoController {
         return ResponseEntity.ok(asientos);
     }
 
+    /**
+     * 📡 GET /api/asientos/funcion/{funcionId}/stream
+     * Stream SSE del mapa de asientos: evento "snapshot" inicial y luego eventos "asiento" (id + estado)
+     */
+    @GetMapping(value = "/funcion/{funcionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMapaAsientos(@PathVariable Long funcionId) {
+        return transmisorAsientos.suscribir(funcionId);
+    }
+
     /**
      * 🔒 POST /api/asientos/reservar/{asientoId}
      * Reserva temporalmente un asiento (5 minutos)
@@ -37,7 +54,8 @@ public class AsientoController {
     @PostMapping("/reservar/{asientoId}")
     public ResponseEntity<?> reservarAsiento(@PathVariable Long asientoId) {
         try {
-            Asiento asiento = asientoService.reservarAsiento(asientoId);
+            Asiento asiento = metricas.asientos("reservar", asientoService.obtenerFuncionDeAsiento(asientoId),
+                    () -> asientoService.reservarAsiento(asientoId));
             return ResponseEntity.ok(asiento);
         } catch (IllegalStateException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -45,6 +63,23 @@ public class AsientoController {
         }
     }
 
+    /**
+     * 🔒 POST /api/asientos/reservar
+     * Reserva varios asientos de una función a la vez (todo o nada)
+     */
+    @PostMapping("/reservar")
+    public ResponseEntity<?> reservarAsientos(@Valid @RequestBody ReservarAsientosDTO dto) {
+        try {
+            // Medido fuera del proxy transaccional: un fallo al hacer commit también cuenta
+            List<Asiento> asientos = metricas.asientos("reservar-lote", dto.getFuncionId(),
+                    () -> asientoService.reservarAsientos(dto.getFuncionId(), dto.getAsientoIds()));
+            return ResponseEntity.ok(asientos);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     /**
      * ✅ POST /api/asientos/confirmar/{asientoId}
      * Confirma la reserva de un asiento (lo marca como OCUPADO)
@@ -52,7 +87,8 @@ public class AsientoController {
     @PostMapping("/confirmar/{asientoId}")
     public ResponseEntity<?> confirmarReserva(@PathVariable Long asientoId) {
         try {
-            Asiento asiento = asientoService.confirmarReserva(asientoId);
+            Asiento asiento = metricas.asientos("confirmar", asientoService.obtenerFuncionDeAsiento(asientoId),
+                    () -> asientoService.confirmarReserva(asientoId));
             return ResponseEntity.ok(asiento);
         } catch (IllegalStateException | IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
@@ -0,0 +1,37 @@
+package com.utp.cinerama.cinerama.controller;
+
+import com.utp.cinerama.cinerama.service.CarteleraMaterializada;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequestMapping("/api/cartelera")
+@RequiredArgsConstructor
+public class CarteleraController {
+
+    private final CarteleraMaterializada cartelera;
+
+    /**
+     * 🎬 Cartelera de la home: películas activas con sus próximas funciones y asientos libres
+     *
+     * El JSON ya viene serializado; si el cliente envía If-None-Match con el ETag vigente se responde 304 sin cuerpo
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> obtenerCartelera(WebRequest request) {
+        CarteleraMaterializada.Documento documento = cartelera.obtener();
+        if (request.checkNotModified(documento.etag())) {
+            return null; // 304 Not Modified
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(documento.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(documento.json());
+    }
+}
@@ -3,6 +3,8 @@ package com.utp.cinerama.cinerama.controller;
 import com.utp.cinerama.cinerama.dto.ActualizarFuncionDTO;
 import com.utp.cinerama.cinerama.dto.ApiResponse;
 import com.utp.cinerama.cinerama.dto.CrearFuncionDTO;
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO;
 import com.utp.cinerama.cinerama.exception.ResourceNotFoundException;
 import com.utp.cinerama.cinerama.model.Funcion;
 import com.utp.cinerama.cinerama.model.Pelicula;
@@ -19,6 +21,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -97,6 +100,25 @@ public class FuncionController {
         );
     }
     
+    /**
+     * Sugiere el primer horario libre de una sala para una película (duración + limpieza)
+     * Ejemplo: /api/funciones/sala/1/siguiente-horario?peliculaId=5&desde=2025-11-26T14:00:00
+     */
+    @GetMapping("/sala/{salaId}/siguiente-horario")
+    public ResponseEntity<ApiResponse<LocalDateTime>> sugerirSiguienteHorario(
+            @PathVariable Long salaId,
+            @RequestParam(required = false) Long peliculaId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde) {
+        log.info("Buscando siguiente horario libre en sala ID: {} (película: {}, desde: {})", salaId, peliculaId, desde);
+        salaService.obtenerSalaPorId(salaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Sala", "id", salaId));
+        
+        LocalDateTime horario = funcionService.sugerirSiguienteHorario(salaId, peliculaId, desde);
+        return ResponseEntity.ok(
+            ApiResponse.success("Siguiente horario libre obtenido exitosamente", horario)
+        );
+    }
+    
     /**
      * Obtiene las funciones por fecha (cartelera del día)
      * Formato de fecha: yyyy-MM-dd (ej: 2025-11-26)
@@ -149,6 +171,25 @@ public class FuncionController {
                 .body(ApiResponse.success("Función creada exitosamente", nuevaFuncion));
     }
 
+    /**
+     * Programa funciones en bloque: bloques (sala + película + horarios) repetidos en un rango de fechas
+     * Valida todas las colisiones en memoria e inserta funciones y asientos por lotes
+     * Con parcial=false (por defecto) no se crea nada si algún horario tiene conflicto
+     */
+    @PostMapping("/programacion")
+    public ResponseEntity<ApiResponse<ResultadoProgramacionDTO>> programarFunciones(
+            @Valid @RequestBody ProgramacionFuncionesDTO dto) {
+        log.info("Programando funciones en bloque del {} al {} ({} bloques)",
+                dto.getFechaInicio(), dto.getFechaFin(), dto.getBloques().size());
+        ResultadoProgramacionDTO resultado = funcionService.programarFunciones(dto);
+        
+        HttpStatus estado = resultado.getFuncionesCreadas() > 0 || resultado.getConflictos().isEmpty()
+                ? HttpStatus.CREATED : HttpStatus.CONFLICT;
+        return ResponseEntity
+                .status(estado)
+                .body(ApiResponse.success(resultado.getMensaje(), resultado));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<Funcion>> actualizarFuncion(
             @PathVariable Long id, 
@@ -164,9 +205,6 @@ public class FuncionController {
         if (dto.getFechaHora() != null) {
             funcionExistente.setFechaHora(dto.getFechaHora());
         }
-        if (dto.getAsientosDisponibles() != null) {
-            funcionExistente.setAsientosDisponibles(dto.getAsientosDisponibles());
-        }
         if (dto.getAsientosTotales() != null) {
             funcionExistente.setAsientosTotales(dto.getAsientosTotales());
         }
@@ -0,0 +1,105 @@
+package com.utp.cinerama.cinerama.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.utp.cinerama.cinerama.config.CircuitBreakerInterceptor;
+import com.utp.cinerama.cinerama.dto.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoints de monitoreo interno (solo ADMIN)
+ */
+@RestController
+@RequestMapping("/api/monitoreo")
+@RequiredArgsConstructor
+public class MonitoreoController {
+
+    private final CacheManager cacheManager;
+    private final PoolingHttpClientConnectionManager httpConnectionManager;
+    private final CircuitBreakerInterceptor circuitBreakerInterceptor;
+
+    /**
+     * 📊 GET /api/monitoreo/cache
+     * Estadísticas de cada caché: hits, misses, recargas, expulsiones y tamaño
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> estadisticasCache() {
+        Map<String, Object> estadisticas = new LinkedHashMap<>();
+
+        for (String nombre : cacheManager.getCacheNames()) {
+            org.springframework.cache.Cache cache = cacheManager.getCache(nombre);
+            if (cache == null || !(cache.getNativeCache() instanceof Cache<?, ?> caffeine)) {
+                continue;
+            }
+
+            CacheStats stats = caffeine.stats();
+            Map<String, Object> detalle = new LinkedHashMap<>();
+            detalle.put("entradas", caffeine.estimatedSize());
+            detalle.put("hits", stats.hitCount());
+            detalle.put("misses", stats.missCount());
+            detalle.put("hitRate", stats.hitRate());
+            detalle.put("cargasExitosas", stats.loadSuccessCount());
+            detalle.put("cargasFallidas", stats.loadFailureCount());
+            detalle.put("tiempoPromedioCargaMs", stats.averageLoadPenalty() / 1_000_000.0);
+            detalle.put("expulsiones", stats.evictionCount());
+            caffeine.policy().eviction().ifPresent(eviction -> {
+                if (eviction.isWeighted()) {
+                    eviction.weightedSize().ifPresent(peso -> detalle.put("pesoActual", peso));
+                }
+                detalle.put("pesoMaximo", eviction.getMaximum());
+            });
+            estadisticas.put(nombre, detalle);
+        }
+
+        return ResponseEntity.ok(ApiResponse.success("Estadísticas de caché", estadisticas));
+    }
+
+    /**
+     * 🌐 GET /api/monitoreo/http-pool
+     * Saturación del pool HTTP saliente (TMDb) y estado de los circuit breakers
+     */
+    @GetMapping("/http-pool")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> estadoHttpPool() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+
+        PoolStats total = httpConnectionManager.getTotalStats();
+        estado.put("total", detallePool(total));
+
+        Map<String, Object> porRuta = new LinkedHashMap<>();
+        for (HttpRoute ruta : httpConnectionManager.getRoutes()) {
+            porRuta.put(ruta.getTargetHost().toURI(), detallePool(httpConnectionManager.getStats(ruta)));
+        }
+        estado.put("rutas", porRuta);
+
+        Map<String, Object> circuitos = new LinkedHashMap<>();
+        circuitBreakerInterceptor.getCircuitos().forEach((host, circuito) -> circuitos.put(host, Map.of(
+                "estado", circuito.getEstado(),
+                "fallosConsecutivos", circuito.getFallosConsecutivos(),
+                "rechazadas", circuito.getRechazadas()
+        )));
+        estado.put("circuitos", circuitos);
+
+        return ResponseEntity.ok(ApiResponse.success("Estado del pool HTTP", estado));
+    }
+
+    private Map<String, Object> detallePool(PoolStats stats) {
+        Map<String, Object> detalle = new LinkedHashMap<>();
+        detalle.put("enUso", stats.getLeased());
+        detalle.put("disponibles", stats.getAvailable());
+        detalle.put("esperando", stats.getPending());
+        detalle.put("maximo", stats.getMax());
+        detalle.put("saturacion", stats.getMax() > 0 ? (double) stats.getLeased() / stats.getMax() : 0);
+        return detalle;
+    }
+}
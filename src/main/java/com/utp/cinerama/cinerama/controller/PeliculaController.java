@@ -4,6 +4,7 @@ import com.utp.cinerama.cinerama.dto.ApiResponse;
 import com.utp.cinerama.cinerama.dto.PagedResponse;
 import com.utp.cinerama.cinerama.dto.SyncResponseDTO;
 import com.utp.cinerama.cinerama.exception.ResourceNotFoundException;
+import com.utp.cinerama.cinerama.model.Genero;
 import com.utp.cinerama.cinerama.model.Pelicula;
 import com.utp.cinerama.cinerama.service.PeliculaService;
 import com.utp.cinerama.cinerama.util.PaginationUtils;
@@ -33,6 +34,7 @@ public class PeliculaController {
      * @param page Número de página (0-indexed, default: 0)
      * @param size Tamaño de página (default: 10)
      * @param sortBy Campo de ordenamiento (default: id)
+     * @param conTotal Si se calcula totalElements/totalPages (default: true). false evita el COUNT(*)
      * @return Respuesta paginada con películas
      * 
      * Ejemplo: GET /api/peliculas/paginadas?page=0&size=10&sortBy=popularidad
@@ -41,12 +43,41 @@ public class PeliculaController {
     public ResponseEntity<ApiResponse<PagedResponse<Pelicula>>> obtenerPeliculasPaginadas(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "id") String sortBy) {
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "true") boolean conTotal) {
         
         log.info("Obteniendo películas paginadas - Page: {}, Size: {}, Sort: {}", page, size, sortBy);
         
-        Page<Pelicula> peliculasPage = peliculaService.obtenerPeliculasPaginadas(page, size, sortBy);
-        PagedResponse<Pelicula> pagedResponse = PaginationUtils.toPagedResponse(peliculasPage);
+        PagedResponse<Pelicula> pagedResponse = conTotal
+                ? PaginationUtils.toPagedResponse(peliculaService.obtenerPeliculasPaginadas(page, size, sortBy))
+                : PaginationUtils.toPagedResponse(peliculaService.obtenerPeliculasSinTotal(page, size, sortBy));
+        
+        return ResponseEntity.ok(
+            ApiResponse.success("Películas obtenidas exitosamente", pagedResponse)
+        );
+    }
+
+    /**
+     * Obtiene películas por cursor (scroll infinito)
+     * Cada página cuesta lo mismo sin importar su profundidad (sin OFFSET ni COUNT(*))
+     * 
+     * @param orden popularidad | votoPromedio | fechaEstreno | id, descendente (default: popularidad)
+     * @param cursor nextCursor de la respuesta anterior (omitir en la primera página)
+     * @param size Tamaño de página (default: 20, máximo: 100)
+     * @param soloActivas Solo películas en cartelera (default: false)
+     * @return Respuesta paginada con nextCursor si hay más películas
+     * 
+     * Ejemplo: GET /api/peliculas/cursor?orden=popularidad&size=20&cursor=UE9QVUxBUklEQUR8...
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<PagedResponse<Pelicula>>> obtenerPeliculasPorCursor(
+            @RequestParam(defaultValue = "popularidad") String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean soloActivas) {
+        
+        PagedResponse<Pelicula> pagedResponse = peliculaService.obtenerPeliculasPorCursor(
+                orden, cursor, Math.max(1, Math.min(size, 100)), soloActivas);
         
         return ResponseEntity.ok(
             ApiResponse.success("Películas obtenidas exitosamente", pagedResponse)
@@ -105,6 +136,61 @@ public class PeliculaController {
         );
     }
 
+    /**
+     * Búsqueda de texto libre (autocompletado) sobre título, título original, género y sinopsis
+     * Sin distinguir tildes ni mayúsculas; la última palabra puede estar incompleta
+     * 
+     * @param q Texto a buscar
+     * @param limite Máximo de resultados (default: 10, máximo: 50)
+     * @param soloActivas Solo películas en cartelera (default: false)
+     * @return Películas ordenadas por relevancia
+     * 
+     * Ejemplo: GET /api/peliculas/buscar?q=accion spid&limite=5
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<ApiResponse<List<Pelicula>>> buscar(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limite,
+            @RequestParam(defaultValue = "false") boolean soloActivas) {
+        
+        List<Pelicula> peliculas = peliculaService.buscar(q, Math.max(1, Math.min(limite, 50)), soloActivas);
+        return ResponseEntity.ok(
+            ApiResponse.success("Se encontraron " + peliculas.size() + " películas", peliculas)
+        );
+    }
+
+    /**
+     * Diccionario de géneros (ID de TMDb y nombre)
+     */
+    @GetMapping("/generos")
+    public ResponseEntity<ApiResponse<List<Genero>>> obtenerGeneros() {
+        return ResponseEntity.ok(
+            ApiResponse.success("Géneros obtenidos exitosamente", peliculaService.obtenerGeneros())
+        );
+    }
+
+    /**
+     * Filtra películas por varios géneros (nombre o ID de TMDb)
+     * 
+     * @param generos Lista separada por comas (ej: "Acción,Comedia" o "28,35")
+     * @param modo "todos" (AND, default) o "alguno" (OR)
+     * @param soloActivas Solo películas en cartelera (default: false)
+     * @return Películas ordenadas por popularidad
+     * 
+     * Ejemplo: GET /api/peliculas/generos/filtrar?generos=Acción,Comedia&modo=alguno
+     */
+    @GetMapping("/generos/filtrar")
+    public ResponseEntity<ApiResponse<List<Pelicula>>> filtrarPorGeneros(
+            @RequestParam List<String> generos,
+            @RequestParam(defaultValue = "todos") String modo,
+            @RequestParam(defaultValue = "false") boolean soloActivas) {
+        
+        List<Pelicula> peliculas = peliculaService.filtrarPorGeneros(generos, !"alguno".equalsIgnoreCase(modo), soloActivas);
+        return ResponseEntity.ok(
+            ApiResponse.success("Se encontraron " + peliculas.size() + " películas", peliculas)
+        );
+    }
+
     // ========== ENDPOINTS NO PAGINADOS (LEGACY - MANTENER COMPATIBILIDAD) ==========
     
     @GetMapping("/activas")
@@ -292,7 +378,7 @@ public class PeliculaController {
      * Se recomienda usar /agregar-desde-tmdb para agregar películas específicas.
      * Los endpoints /api/tmdb/* proveen catálogo completo sin guardar.
      * 
-     * @param paginas Número de páginas a sincronizar (1-5). Default: 1
+     * @param paginas Número de páginas a sincronizar (1-500). Default: 1
      * @return Resultado de la sincronización con estadísticas
      * 
      * @deprecated Usar {@link #agregarPeliculaDesdeTMDb(Long)} para agregar películas individuales
@@ -310,6 +396,23 @@ public class PeliculaController {
         );
     }
 
+    /**
+     * Sincronización incremental con TMDb
+     * Actualiza solo las películas ya guardadas que cambiaron en TMDb desde la última ejecución
+     * (también corre cada noche, ver cinerama.tmdb.sync.cron)
+     * 
+     * @return Resultado de la sincronización con estadísticas
+     */
+    @PostMapping("/sync/cambios")
+    public ResponseEntity<ApiResponse<SyncResponseDTO>> sincronizarCambios() {
+        log.info("Iniciando sincronización incremental de películas");
+        SyncResponseDTO resultado = peliculaService.sincronizarCambiosDesdeAPI();
+        
+        return ResponseEntity.ok(
+            ApiResponse.success("Sincronización incremental completada", resultado)
+        );
+    }
+
     /**
      * Endpoint de prueba de conexión con TMDb API
      * 
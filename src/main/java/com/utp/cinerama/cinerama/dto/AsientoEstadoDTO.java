@@ -0,0 +1,44 @@
+package com.utp.cinerama.cinerama.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.utp.cinerama.cinerama.model.Asiento;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
+import lombok.*;
+
+/**
+ * Vista compacta de un asiento para el stream en vivo del mapa de asientos.
+ * El snapshot inicial lleva todos los campos; los deltas solo id y estado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AsientoEstadoDTO {
+
+    private Long id;
+    private String fila;
+    private Integer numero;
+    private TipoAsiento tipo;
+    private Double precio;
+    private EstadoAsiento estado;
+
+    public static AsientoEstadoDTO completo(Asiento asiento) {
+        return AsientoEstadoDTO.builder()
+                .id(asiento.getId())
+                .fila(asiento.getFila())
+                .numero(asiento.getNumero())
+                .tipo(asiento.getTipo())
+                .precio(asiento.getPrecio())
+                .estado(asiento.getEstado())
+                .build();
+    }
+
+    public static AsientoEstadoDTO delta(Asiento asiento) {
+        return AsientoEstadoDTO.builder()
+                .id(asiento.getId())
+                .estado(asiento.getEstado())
+                .build();
+    }
+}
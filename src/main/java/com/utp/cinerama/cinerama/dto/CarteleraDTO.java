@@ -0,0 +1,59 @@
+package com.utp.cinerama.cinerama.dto;
+
+import com.utp.cinerama.cinerama.model.Sala.TipoSala;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Vista de lectura de la cartelera (home pública)
+ * Películas activas con sus próximas funciones y asientos libres, sin grafos JPA repetidos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CarteleraDTO {
+
+    private LocalDateTime generadaEn;
+    private List<PeliculaCartelera> peliculas;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class PeliculaCartelera {
+        private Long id;
+        private String titulo;
+        private String genero;
+        private Integer duracion;
+        private String clasificacion;
+        private String sinopsis;
+        private String posterUrl;
+        private String backdropUrl;
+        private LocalDate fechaEstreno;
+        private Double votoPromedio;
+        private List<FuncionCartelera> funciones;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FuncionCartelera {
+        private Long id;
+        private LocalDateTime fechaHora;
+        private Long salaId;
+        private String sala;
+        private TipoSala tipoSala;
+        private BigDecimal precioEntrada;
+        private Integer asientosDisponibles;
+        private Integer asientosTotales;
+    }
+}
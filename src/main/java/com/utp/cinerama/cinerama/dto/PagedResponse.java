@@ -1,5 +1,6 @@
 package com.utp.cinerama.cinerama.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,6 +19,9 @@ import java.util.List;
  * - totalElements: total de elementos en BD
  * - totalPages: total de paginas
  * - first/last: flags para deshabilitar botones
+ * - nextCursor: cursor opaco para pedir la siguiente página (paginación por cursor / scroll infinito)
+ * 
+ * Los totales (y el número de página en la paginación por cursor) se omiten cuando no se calculan
  * 
  * @param <T> Tipo de dato en la lista
  */
@@ -35,7 +39,8 @@ public class PagedResponse<T> {
     /**
      * Numero de pagina actual (empieza en 0)
      */
-    private int pageNumber;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer pageNumber;
     
     /**
      * Cantidad de elementos por pagina
@@ -43,14 +48,16 @@ public class PagedResponse<T> {
     private int pageSize;
     
     /**
-     * Total de elementos en toda la BD
+     * Total de elementos en toda la BD (null si se pidió sin total)
      */
-    private long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
     
     /**
-     * Total de paginas disponibles
+     * Total de paginas disponibles (null si se pidió sin total)
      */
-    private int totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer totalPages;
     
     /**
      * Indica si es la primera pagina
@@ -73,4 +80,10 @@ public class PagedResponse<T> {
      * Indica si hay pagina anterior
      */
     private boolean hasPrevious;
+    
+    /**
+     * Cursor de la siguiente pagina (solo en paginacion por cursor)
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
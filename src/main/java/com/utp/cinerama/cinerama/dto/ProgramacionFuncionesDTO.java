@@ -0,0 +1,63 @@
+package com.utp.cinerama.cinerama.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * DTO para programar funciones en bloque (por ejemplo, la semana completa)
+ *
+ * Cada bloque indica sala + película + horarios; se repite en cada día del rango
+ * (opcionalmente solo en los días de la semana indicados)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProgramacionFuncionesDTO {
+
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDate fechaInicio;
+
+    @NotNull(message = "La fecha de fin es obligatoria")
+    private LocalDate fechaFin;
+
+    private Set<DayOfWeek> diasSemana; // Vacío = todos los días del rango
+
+    @NotNull(message = "El precio de la entrada es obligatorio")
+    @DecimalMin(value = "0.01", message = "El precio debe ser mayor a 0")
+    private BigDecimal precioEntrada;
+
+    // true = crea las funciones sin conflicto aunque otras choquen; false = todo o nada
+    private boolean parcial;
+
+    @NotEmpty(message = "Debe indicar al menos un bloque de programación")
+    @Valid
+    private List<Bloque> bloques;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Bloque {
+
+        @NotNull(message = "El ID de la sala es obligatorio")
+        private Long salaId;
+
+        @NotNull(message = "El ID de la película es obligatorio")
+        private Long peliculaId;
+
+        @NotEmpty(message = "Debe indicar al menos un horario")
+        private List<LocalTime> horarios;
+
+        @DecimalMin(value = "0.01", message = "El precio debe ser mayor a 0")
+        private BigDecimal precioEntrada; // Opcional: sustituye al precio general
+    }
+}
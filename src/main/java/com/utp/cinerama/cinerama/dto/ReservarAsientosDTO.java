@@ -0,0 +1,23 @@
+package com.utp.cinerama.cinerama.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO para reservar varios asientos de una función en una sola operación
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReservarAsientosDTO {
+
+    @NotNull(message = "El ID de la función es obligatorio")
+    private Long funcionId;
+
+    @NotNull(message = "La lista de asientos es obligatoria")
+    @Size(min = 1, max = 10, message = "Debe seleccionar entre 1 y 10 asientos")
+    private List<@NotNull(message = "El ID del asiento es obligatorio") Long> asientoIds;
+}
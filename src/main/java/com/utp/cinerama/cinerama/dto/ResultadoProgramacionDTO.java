@@ -0,0 +1,37 @@
+package com.utp.cinerama.cinerama.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el resultado de una programación de funciones en bloque
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoProgramacionDTO {
+
+    private Integer funcionesSolicitadas;
+    private Integer funcionesCreadas;
+    private Integer asientosGenerados;
+    private List<Conflicto> conflictos;
+    private Long duracionMs;
+    private String mensaje;
+
+    /**
+     * Horario que no se pudo programar y el motivo
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Conflicto {
+        private Long salaId;
+        private Long peliculaId;
+        private LocalDateTime fechaHora;
+        private String motivo;
+    }
+}
@@ -18,5 +18,7 @@ public class SyncResponseDTO {
     private Integer peliculasNuevas;
     private Integer peliculasActualizadas;
     private Integer peliculasOmitidas;
+    private Integer peliculasSinCambios; // Existentes cuyo hash no cambió (no se reescriben)
+    private Integer paginasFallidas; // Páginas de TMDb que no se pudieron descargar (sus películas no se procesaron)
     private String mensaje;
 }
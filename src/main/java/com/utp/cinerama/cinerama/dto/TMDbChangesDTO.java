@@ -0,0 +1,47 @@
+package com.utp.cinerama.cinerama.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para mapear la respuesta de /movie/changes (IDs de películas modificadas en TMDb)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TMDbChangesDTO {
+
+    @JsonProperty("page")
+    private Integer page;
+
+    @JsonProperty("results")
+    private List<Cambio> results;
+
+    @JsonProperty("total_pages")
+    private Integer totalPages;
+
+    @JsonProperty("total_results")
+    private Integer totalResults;
+
+    /**
+     * DTO interno para cada película modificada
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Cambio {
+
+        @JsonProperty("id")
+        private Long id;
+
+        @JsonProperty("adult")
+        private Boolean adult;
+    }
+}
@@ -0,0 +1,22 @@
+package com.utp.cinerama.cinerama.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para mapear la respuesta de /genre/movie/list
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TMDbGenresDTO {
+
+    @JsonProperty("genres")
+    private List<TMDbMovieDTO.Genre> genres;
+}
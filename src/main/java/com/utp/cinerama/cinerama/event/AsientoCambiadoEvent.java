@@ -0,0 +1,15 @@
+package com.utp.cinerama.cinerama.event;
+
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+
+/**
+ * Evento publicado por el motor de asientos cada vez que un asiento cambia de estado.
+ * Los cambios hechos dentro de una transacción se publican solo después del commit.
+ */
+public record AsientoCambiadoEvent(
+        Long funcionId,
+        Long asientoId,
+        EstadoAsiento estadoAnterior,
+        EstadoAsiento estadoNuevo
+) {
+}
@@ -0,0 +1,10 @@
+package com.utp.cinerama.cinerama.event;
+
+/**
+ * Evento publicado por el servicio de funciones al crear, actualizar o eliminar una función.
+ * Los oyentes transaccionales lo reciben después del commit.
+ *
+ * @param funcionId Función modificada; null si el cambio abarca varias (programación en bloque)
+ */
+public record FuncionCambiadaEvent(Long funcionId) {
+}
@@ -0,0 +1,10 @@
+package com.utp.cinerama.cinerama.event;
+
+/**
+ * Evento publicado por el servicio de películas al crear, actualizar (incluida la activación
+ * o desactivación) o eliminar una película. Los oyentes transaccionales lo reciben después del commit.
+ *
+ * @param peliculaId Película modificada
+ */
+public record PeliculaCambiadaEvent(Long peliculaId) {
+}
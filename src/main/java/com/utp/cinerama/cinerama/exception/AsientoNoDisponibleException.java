@@ -0,0 +1,12 @@
+package com.utp.cinerama.cinerama.exception;
+
+/**
+ * Excepción lanzada cuando otro cliente ganó el asiento (CAS perdido en memoria o fila ya tomada en BD)
+ * Extiende IllegalStateException: se sigue respondiendo 409 CONFLICT como el resto de estados inválidos
+ */
+public class AsientoNoDisponibleException extends IllegalStateException {
+
+    public AsientoNoDisponibleException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.utp.cinerama.cinerama.model;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -21,6 +22,9 @@ import java.time.LocalDateTime;
 @ToString(exclude = {"funcion", "boleto"})
 public class Asiento {
 
+    // Minutos que dura una reserva temporal antes de expirar
+    public static final int MINUTOS_RESERVA = 15;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -57,6 +61,12 @@ public class Asiento {
     @Column(name = "fecha_expiracion_reserva")
     private LocalDateTime fechaExpiracionReserva;
 
+    // Bloqueo optimista: cada UPDATE de la fila (JPA o SQL directo) la incrementa
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     // Relación con Boleto (cuando se confirma la compra)
     @OneToOne(mappedBy = "asiento")
     @JsonIgnoreProperties({"asiento", "funcion", "cliente"})
@@ -124,7 +134,7 @@ public class Asiento {
         this.estado = EstadoAsiento.RESERVADO;
         this.reservadoPor = clienteId;
         this.fechaReserva = LocalDateTime.now();
-        this.fechaExpiracionReserva = LocalDateTime.now().plusMinutes(15);
+        this.fechaExpiracionReserva = this.fechaReserva.plusMinutes(MINUTOS_RESERVA);
     }
 
     // Confirmar reserva (al pagar)
@@ -0,0 +1,38 @@
+package com.utp.cinerama.cinerama.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Marca de agua de las sincronizaciones incrementales con TMDb
+ * Guarda hasta qué fecha (UTC) ya se procesó el feed de cambios
+ */
+@Entity
+@Table(name = "estado_sincronizacion")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class EstadoSincronizacion {
+
+    @Id
+    @Column(length = 50)
+    private String clave; // Ej: "tmdb-movie-changes"
+
+    @Column(name = "ultima_fecha", nullable = false)
+    private LocalDate ultimaFecha;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+}
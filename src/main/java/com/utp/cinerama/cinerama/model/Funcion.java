@@ -1,5 +1,6 @@
 package com.utp.cinerama.cinerama.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -8,7 +9,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "funciones")
+@Table(name = "funciones", indexes = {
+    // Agenda de salas: funciones de una sala a partir de una fecha
+    @Index(name = "idx_funciones_sala_fecha", columnList = "sala_id, fecha_hora")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,7 +41,8 @@ public class Funcion {
 
     @NotNull(message = "Los asientos disponibles son obligatorios")
     @Min(value = 0, message = "Los asientos disponibles no pueden ser negativos")
-    @Column(nullable = false)
+    // Contador vivo: JPA solo lo escribe al crear; después lo mantiene MotorAsientos (write-behind)
+    @Column(nullable = false, updatable = false)
     private Integer asientosDisponibles;
 
     @NotNull(message = "Los asientos totales son obligatorios")
@@ -50,4 +55,9 @@ public class Funcion {
     @DecimalMin(value = "0.0", inclusive = false, message = "El precio debe ser mayor a 0")
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal precioEntrada;
+
+    // true = solo se guardan en BD los asientos que dejaron de estar DISPONIBLE (ver MotorAsientos)
+    @JsonIgnore
+    @Column(name = "asientos_dispersos")
+    private Boolean asientosDispersos;
 }
\ No newline at end of file
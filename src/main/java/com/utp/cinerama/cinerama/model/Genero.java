@@ -0,0 +1,31 @@
+package com.utp.cinerama.cinerama.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Diccionario de géneros (IDs de TMDb)
+ * Cada género tiene una posición fija en la máscara de bits de Pelicula.generosMask
+ */
+@Entity
+@Table(name = "generos")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class Genero {
+
+    @Id
+    private Integer id; // Mismo ID que en TMDb (28 = Acción, 18 = Drama, ...)
+
+    @Column(nullable = false, length = 100)
+    private String nombre;
+
+    // Posición (0-63) en la máscara de bits
+    @JsonIgnore
+    @Column(nullable = false, unique = true)
+    private Integer bit;
+}
@@ -1,16 +1,23 @@
 package com.utp.cinerama.cinerama.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 
 @Entity
 @Table(name = "peliculas", indexes = {
-    @Index(name = "idx_tmdb_id", columnList = "tmdb_id", unique = true)
+    @Index(name = "idx_tmdb_id", columnList = "tmdb_id", unique = true),
+    // Paginación por cursor: (clave de orden, id)
+    @Index(name = "idx_peliculas_popularidad", columnList = "popularidad, id"),
+    @Index(name = "idx_peliculas_voto", columnList = "voto_promedio, id"),
+    @Index(name = "idx_peliculas_estreno", columnList = "fecha_estreno, id")
 })
 @Getter
 @Setter
@@ -44,7 +51,23 @@ public class Pelicula {
     private String idiomaOriginal;
 
     @Column(columnDefinition = "TEXT")
-    private String genero; // Guarda géneros concatenados: "Acción, Comedia"
+    private String genero; // Guarda géneros concatenados: "Acción, Comedia" (para mostrar)
+
+    // Géneros como máscara de bits (ver Genero.bit): filtros AND/OR en memoria sin LIKE
+    @JsonIgnore
+    @Column(name = "generos_mask")
+    private Long generosMask;
+
+    // Misma información normalizada, para filtrar en BD con índice
+    @JsonIgnore
+    @ToString.Exclude
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "pelicula_generos",
+            joinColumns = @JoinColumn(name = "pelicula_id"),
+            inverseJoinColumns = @JoinColumn(name = "genero_id"),
+            indexes = @Index(name = "idx_pelicula_generos_genero", columnList = "genero_id, pelicula_id"))
+    @Builder.Default
+    private Set<Genero> generos = new HashSet<>();
 
     @Min(value = 1, message = "La duración debe ser al menos 1 minuto")
     @Max(value = 600, message = "La duración no puede exceder 600 minutos")
@@ -91,6 +114,11 @@ public class Pelicula {
     @Column(name = "activa")
     private Boolean activa = true; // Para control interno del cine
 
+    // SHA-256 (Base64) de los campos sincronizados: si no cambia, la sincronización no reescribe la fila
+    @JsonIgnore
+    @Column(name = "hash_tmdb", length = 44)
+    private String hashTmdb;
+
     // equals y hashCode basados en tmdbId
     @Override
     public boolean equals(Object o) {
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,14 @@ public interface AsientoRepository extends JpaRepository<Asiento, Long> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Asiento a WHERE a.id = :id")
     Optional<Asiento> findByIdWithLock(@Param("id") Long id);
+    /**
+     * Obtiene varios asientos con bloqueo pesimista en un único SELECT ... FOR UPDATE
+     * Ordenados por ID para que todas las transacciones bloqueen en el mismo orden (evita deadlocks)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Asiento a WHERE a.id IN :ids ORDER BY a.id ASC")
+    List<Asiento> findAllByIdInWithLock(@Param("ids") List<Long> ids);
+
     /**
      * Busca asiento por función, fila y número con bloqueo
      */
@@ -40,6 +49,19 @@ public interface AsientoRepository extends JpaRepository<Asiento, Long> {
     @Query("SELECT a FROM Asiento a WHERE a.funcion.id = :funcionId ORDER BY a.fila ASC, a.numero ASC")
     List<Asiento> findByFuncionIdOrderByFilaAscNumeroAsc(@Param("funcionId") Long funcionId);
 
+    /**
+     * Obtiene los asientos de varias funciones en una sola consulta
+     * Uso: Reconstrucción del motor de asientos al iniciar
+     */
+    @Query("SELECT a FROM Asiento a WHERE a.funcion.id IN :funcionIds")
+    List<Asiento> findByFuncionIdIn(@Param("funcionIds") List<Long> funcionIds);
+
+    /**
+     * Obtiene el ID de la función a la que pertenece un asiento
+     */
+    @Query("SELECT a.funcion.id FROM Asiento a WHERE a.id = :id")
+    Optional<Long> findFuncionIdById(@Param("id") Long id);
+
     /**
      * Obtiene asientos por estado de una función
      */
@@ -59,15 +81,58 @@ public interface AsientoRepository extends JpaRepository<Asiento, Long> {
     @Query("SELECT COUNT(a) FROM Asiento a WHERE a.funcion.id = :funcionId AND a.estado = :estado")
     long countByFuncionIdAndEstado(@Param("funcionId") Long funcionId, @Param("estado") EstadoAsiento estado);
 
+    /**
+     * Cuenta asientos de una función agrupados por estado en una sola consulta
+     * Cada fila: [EstadoAsiento estado, Long cantidad]
+     */
+    @Query("SELECT a.estado, COUNT(a) FROM Asiento a WHERE a.funcion.id = :funcionId GROUP BY a.estado")
+    List<Object[]> contarPorEstado(@Param("funcionId") Long funcionId);
+
     /**
      * Libera múltiples asientos expirados (usado por scheduler)
      */
     @Modifying
     @Query("UPDATE Asiento a SET a.estado = 'DISPONIBLE', a.reservadoPor = NULL, " +
-           "a.fechaReserva = NULL, a.fechaExpiracionReserva = NULL " +
+           "a.fechaReserva = NULL, a.fechaExpiracionReserva = NULL, a.version = a.version + 1 " +
            "WHERE a.estado = 'RESERVADO' AND a.fechaExpiracionReserva < :fechaActual")
     int liberarAsientosExpirados(@Param("fechaActual") LocalDateTime fechaActual);
 
+    /**
+     * Libera asientos expirados excepto los de las funciones indicadas
+     * Uso: barrido del scheduler, que no debe tocar funciones residentes en MotorAsientos
+     */
+    @Modifying
+    @Query("UPDATE Asiento a SET a.estado = 'DISPONIBLE', a.reservadoPor = NULL, " +
+           "a.fechaReserva = NULL, a.fechaExpiracionReserva = NULL, a.version = a.version + 1 " +
+           "WHERE a.estado = 'RESERVADO' AND a.fechaExpiracionReserva < :fechaActual " +
+           "AND a.funcion.id NOT IN :funcionIds")
+    int liberarAsientosExpiradosExcepto(@Param("fechaActual") LocalDateTime fechaActual,
+                                        @Param("funcionIds") Collection<Long> funcionIds);
+
+    /**
+     * Reserva varios asientos con un único UPDATE condicional (usado en la reserva por lote)
+     * Nunca pisa asientos ya OCUPADOS: si devuelve menos filas que el lote, alguno se vendió
+     * (con cinerama.asientos.reserva-directa es el único árbitro; si no, va tras findAllByIdInWithLock)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Asiento a SET a.estado = 'RESERVADO', a.reservadoPor = :clienteId, " +
+           "a.fechaReserva = :fechaReserva, a.fechaExpiracionReserva = :fechaExpiracion, " +
+           "a.version = a.version + 1 " +
+           "WHERE a.id IN :ids AND a.estado <> 'OCUPADO'")
+    int reservarEnLote(@Param("ids") List<Long> ids,
+                       @Param("clienteId") Long clienteId,
+                       @Param("fechaReserva") LocalDateTime fechaReserva,
+                       @Param("fechaExpiracion") LocalDateTime fechaExpiracion);
+
+    /**
+     * Marca varios asientos como OCUPADOS con un único UPDATE (confirmación de compra)
+     * Devuelve cuántas filas cambiaron: si es menor al tamaño del lote, alguno ya estaba vendido
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Asiento a SET a.estado = 'OCUPADO', a.fechaExpiracionReserva = NULL, a.version = a.version + 1 " +
+           "WHERE a.id IN :ids AND a.estado <> 'OCUPADO'")
+    int ocuparEnLote(@Param("ids") List<Long> ids);
+
     /**
      * Verifica si existe un asiento específico
      */
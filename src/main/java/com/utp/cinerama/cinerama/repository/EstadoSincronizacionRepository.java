@@ -0,0 +1,9 @@
+package com.utp.cinerama.cinerama.repository;
+
+import com.utp.cinerama.cinerama.model.EstadoSincronizacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EstadoSincronizacionRepository extends JpaRepository<EstadoSincronizacion, String> {
+}
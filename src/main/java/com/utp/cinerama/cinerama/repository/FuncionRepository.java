@@ -17,6 +17,11 @@ public interface FuncionRepository extends JpaRepository<Funcion, Long> {
 
     @Query("SELECT f FROM Funcion f WHERE f.sala.id = :salaId")
     List<Funcion> findBySalaId(@Param("salaId") Long salaId);
+
+    // Ocupación de una sala desde un instante: [id, fechaHora, duración de la película] sin cargar entidades
+    @Query("SELECT f.id, f.fechaHora, p.duracion FROM Funcion f JOIN f.pelicula p " +
+           "WHERE f.sala.id = :salaId AND f.fechaHora >= :desde ORDER BY f.fechaHora ASC")
+    List<Object[]> findOcupacionSala(@Param("salaId") Long salaId, @Param("desde") LocalDateTime desde);
     
     // Buscar funciones por fecha (solo la parte de fecha de fechaHora)
     @Query("SELECT f FROM Funcion f WHERE DATE(f.fechaHora) = :fecha")
@@ -29,6 +34,11 @@ public interface FuncionRepository extends JpaRepository<Funcion, Long> {
     @Query("SELECT f FROM Funcion f WHERE f.fechaHora > :ahora ORDER BY f.fechaHora ASC")
     List<Funcion> findFuncionesDisponibles(@Param("ahora") LocalDateTime ahora);
     
+    // Cartelera: próximas funciones de películas activas con sala y película en un solo SELECT
+    @Query("SELECT f FROM Funcion f JOIN FETCH f.sala JOIN FETCH f.pelicula p " +
+           "WHERE f.fechaHora > :ahora AND p.activa = TRUE ORDER BY f.fechaHora ASC")
+    List<Funcion> findParaCartelera(@Param("ahora") LocalDateTime ahora);
+
     // Buscar funciones futuras de una película específica
     @Query("SELECT f FROM Funcion f WHERE f.pelicula.id = :peliculaId AND f.fechaHora > :ahora ORDER BY f.fechaHora ASC")
     List<Funcion> findFuncionesDisponiblesByPeliculaId(@Param("peliculaId") Long peliculaId, @Param("ahora") LocalDateTime ahora);
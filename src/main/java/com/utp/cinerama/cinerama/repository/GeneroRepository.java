@@ -0,0 +1,9 @@
+package com.utp.cinerama.cinerama.repository;
+
+import com.utp.cinerama.cinerama.model.Genero;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GeneroRepository extends JpaRepository<Genero, Integer> {
+}
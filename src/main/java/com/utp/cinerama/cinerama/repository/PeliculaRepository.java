@@ -3,21 +3,30 @@ package com.utp.cinerama.cinerama.repository;
 import com.utp.cinerama.cinerama.model.Pelicula;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PeliculaRepository extends JpaRepository<Pelicula, Long> {
+public interface PeliculaRepository extends JpaRepository<Pelicula, Long>, PeliculaRepositoryCustom {
     
     // Buscar por TMDb ID (unico)
     @Query("SELECT p FROM Pelicula p WHERE p.tmdbId = :tmdbId")
     Optional<Pelicula> findByTmdbId(@Param("tmdbId") Long tmdbId);
     
+    // Filas [tmdbId, hashTmdb, duracion] de las películas que ya existen (una sola consulta para todo un lote)
+    @Query("SELECT p.tmdbId, p.hashTmdb, p.duracion FROM Pelicula p WHERE p.tmdbId IN :tmdbIds")
+    List<Object[]> findHashesPorTmdbId(@Param("tmdbIds") Collection<Long> tmdbIds);
+
+    @Query("SELECT p FROM Pelicula p WHERE p.tmdbId IN :tmdbIds")
+    List<Pelicula> findByTmdbIdIn(@Param("tmdbIds") Collection<Long> tmdbIds);
+
     // Verificar si existe por TMDb ID
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN TRUE ELSE FALSE END FROM Pelicula p WHERE p.tmdbId = :tmdbId")
     boolean existsByTmdbId(@Param("tmdbId") Long tmdbId);
@@ -29,6 +38,17 @@ public interface PeliculaRepository extends JpaRepository<Pelicula, Long> {
     @Query("SELECT p FROM Pelicula p WHERE LOWER(p.titulo) LIKE LOWER(CONCAT('%', :titulo, '%'))")
     List<Pelicula> findByTituloContainingIgnoreCase(@Param("titulo") String titulo);
 
+    // Géneros normalizados: películas con al menos {minimo} de los géneros dados (minimo = n → AND, 1 → OR)
+    @Query(value = "SELECT p.* FROM peliculas p WHERE p.id IN (" +
+                   "SELECT pg.pelicula_id FROM pelicula_generos pg WHERE pg.genero_id IN (:generoIds) " +
+                   "GROUP BY pg.pelicula_id HAVING COUNT(*) >= :minimo)",
+           countQuery = "SELECT COUNT(*) FROM (" +
+                   "SELECT pg.pelicula_id FROM pelicula_generos pg WHERE pg.genero_id IN (:generoIds) " +
+                   "GROUP BY pg.pelicula_id HAVING COUNT(*) >= :minimo) t",
+           nativeQuery = true)
+    Page<Pelicula> findByGeneros(@Param("generoIds") Collection<Integer> generoIds,
+                                 @Param("minimo") long minimo, Pageable pageable);
+
     @Query("SELECT p FROM Pelicula p WHERE p.clasificacion = :clasificacion")
     List<Pelicula> findByClasificacion(@Param("clasificacion") String clasificacion);
     
@@ -42,6 +62,9 @@ public interface PeliculaRepository extends JpaRepository<Pelicula, Long> {
     @Query(value = "SELECT p FROM Pelicula p WHERE p.clasificacion = :clasificacion")
     Page<Pelicula> findByClasificacion(@Param("clasificacion") String clasificacion, Pageable pageable);
     
+    // Página sin COUNT(*): Slice solo consulta size + 1 filas para saber si hay siguiente
+    Slice<Pelicula> findAllBy(Pageable pageable);
+
     // Buscar peliculas activas
     @Query("SELECT p FROM Pelicula p WHERE p.activa = TRUE")
     List<Pelicula> findByActivaTrue();
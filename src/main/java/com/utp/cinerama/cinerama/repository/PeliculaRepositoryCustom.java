@@ -0,0 +1,40 @@
+package com.utp.cinerama.cinerama.repository;
+
+import com.utp.cinerama.cinerama.model.Pelicula;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Consultas de PeliculaRepository que no se pueden expresar con @Query fijas
+ */
+public interface PeliculaRepositoryCustom {
+
+    /**
+     * Claves de orden permitidas en la paginación por cursor (todas con índice compuesto (campo, id))
+     * Orden descendente; el ID desempata
+     */
+    @Getter
+    @RequiredArgsConstructor
+    enum OrdenCursor {
+        POPULARIDAD("popularidad"),
+        VOTO_PROMEDIO("votoPromedio"),
+        FECHA_ESTRENO("fechaEstreno"),
+        ID("id");
+
+        private final String campo;
+    }
+
+    /**
+     * Paginación por cursor (keyset): devuelve las películas que van después de (valor, id)
+     * sin OFFSET, por lo que una página profunda cuesta lo mismo que la primera
+     *
+     * @param orden Clave de orden
+     * @param valor Valor de la clave en la última película de la página anterior (null si era NULL)
+     * @param id ID de la última película de la página anterior (null = primera página)
+     * @param limite Máximo de películas
+     * @param soloActivas Si se excluyen las películas inactivas
+     */
+    List<Pelicula> buscarDespuesDe(OrdenCursor orden, Object valor, Long id, int limite, boolean soloActivas);
+}
@@ -0,0 +1,53 @@
+package com.utp.cinerama.cinerama.repository;
+
+import com.utp.cinerama.cinerama.model.Pelicula;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * Implementación de {@link PeliculaRepositoryCustom} (Spring Data la combina con PeliculaRepository)
+ */
+public class PeliculaRepositoryImpl implements PeliculaRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Pelicula> buscarDespuesDe(OrdenCursor orden, Object valor, Long id, int limite, boolean soloActivas) {
+        // El campo sale del enum (nunca de la petición), así que se puede concatenar en el JPQL
+        String campo = "p." + orden.getCampo();
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Pelicula p WHERE 1 = 1");
+
+        if (soloActivas) {
+            jpql.append(" AND p.activa = TRUE");
+        }
+
+        if (id != null) {
+            if (orden == OrdenCursor.ID) {
+                jpql.append(" AND p.id < :id");
+            } else if (valor == null) {
+                // Ya estamos en la cola de valores NULL (en MySQL van al final en orden DESC)
+                jpql.append(" AND ").append(campo).append(" IS NULL AND p.id < :id");
+            } else {
+                jpql.append(" AND (").append(campo).append(" < :valor OR (")
+                    .append(campo).append(" = :valor AND p.id < :id) OR ")
+                    .append(campo).append(" IS NULL)");
+            }
+        }
+
+        jpql.append(orden == OrdenCursor.ID ? " ORDER BY p.id DESC" : " ORDER BY " + campo + " DESC, p.id DESC");
+
+        TypedQuery<Pelicula> query = entityManager.createQuery(jpql.toString(), Pelicula.class)
+                .setMaxResults(limite);
+        if (id != null) {
+            query.setParameter("id", id);
+            if (orden != OrdenCursor.ID && valor != null) {
+                query.setParameter("valor", valor);
+            }
+        }
+        return query.getResultList();
+    }
+}
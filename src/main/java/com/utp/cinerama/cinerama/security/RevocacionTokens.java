@@ -0,0 +1,58 @@
+package com.utp.cinerama.cinerama.security;
+
+import com.utp.cinerama.cinerama.util.JwtUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🚫 Lista de revocación en memoria para tokens JWT
+ *
+ * Como el principal se arma desde los claims (sin consultar la BD), un cambio de contraseña
+ * o la desactivación de un usuario revoca todos los tokens emitidos antes de ese instante.
+ * Cada entrada vive lo que dura el token más largo; después ya no hay tokens que revocar.
+ *
+ * Limitación: la lista no se persiste. Tras un reinicio, y con jwt.principal-desde-claims=true,
+ * los tokens revocados vuelven a aceptarse hasta su expiración (con false la BD sigue validando
+ * que el usuario exista y esté activo en cada request).
+ */
+@Component
+@Slf4j
+public class RevocacionTokens {
+
+    private final Map<String, Instant> revocadosDesde = new ConcurrentHashMap<>();
+
+    /**
+     * Revoca los tokens emitidos hasta ahora para los identificadores dados (username, email)
+     */
+    public void revocar(String... identificadores) {
+        // "iat" tiene precisión de segundos
+        Instant ahora = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        for (String identificador : identificadores) {
+            if (identificador != null) {
+                revocadosDesde.put(identificador, ahora);
+            }
+        }
+        log.info("🚫 Tokens revocados para: {}", String.join(", ", identificadores));
+    }
+
+    /**
+     * Indica si un token del sujeto emitido en "emitido" fue revocado
+     */
+    public boolean estaRevocado(String sujeto, Date emitido) {
+        Instant desde = revocadosDesde.get(sujeto);
+        return desde != null && (emitido == null || emitido.toInstant().isBefore(desde));
+    }
+
+    @Scheduled(fixedRate = 1000L * 60 * 10)
+    public void purgar() {
+        Instant limite = Instant.now().minusMillis(JwtUtil.EXPIRATION_MAXIMA);
+        revocadosDesde.values().removeIf(desde -> desde.isBefore(limite));
+    }
+}
@@ -0,0 +1,272 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🗓️ Agenda en memoria de la ocupación de cada sala
+ *
+ * - Por sala, los intervalos ocupados [inicio, fin + limpieza) ordenados por inicio (árbol rojo-negro)
+ * - Una función dura como máximo 600 min (Pelicula.duracion), así que solo las que empiezan en la ventana
+ *   [inicio - 605 min, fin) pueden solaparse: cada comprobación es O(log n) + las pocas de esa ventana
+ * - Se carga por sala la primera vez que se usa, solo con las funciones que aún pueden ocupar la sala
+ *   (una consulta acotada por fecha, sin cargar la película completa)
+ * - Las reservas hechas dentro de una transacción se deshacen si esta se revierte
+ *
+ * Nota: como MotorAsientos, asume una sola instancia del backend
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AgendaSalas {
+
+    public static final int DURACION_POR_DEFECTO = 120; // Películas sin duración definida
+    public static final int BUFFER_LIMPIEZA_MINUTOS = 5;
+    private static final int DURACION_MAXIMA = 600;     // @Max de Pelicula.duracion
+    private static final int ALCANCE_MAXIMO = DURACION_MAXIMA + BUFFER_LIMPIEZA_MINUTOS;
+
+    private static final Comparator<Ocupacion> POR_INICIO = Comparator.comparing(Ocupacion::inicio)
+            .thenComparing(Ocupacion::funcionId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final FuncionRepository funcionRepository;
+
+    private final Map<Long, Agenda> porSala = new ConcurrentHashMap<>();
+
+    /**
+     * Intervalo [inicio, fin) que una función ocupa en su sala (fin incluye la limpieza)
+     */
+    public record Ocupacion(Long funcionId, LocalDateTime inicio, LocalDateTime fin) {}
+
+    public record Colision(Ocupacion nueva, Ocupacion existente) {}
+
+    public static Ocupacion ocupacion(Long funcionId, LocalDateTime inicio, Integer duracionMinutos) {
+        int duracion = duracionMinutos != null ? duracionMinutos : DURACION_POR_DEFECTO;
+        return new Ocupacion(funcionId, inicio, inicio.plusMinutes(duracion + BUFFER_LIMPIEZA_MINUTOS));
+    }
+
+    /**
+     * Comprueba y registra la ocupación de una función en una sola operación atómica por sala.
+     * Si la función ya estaba en la agenda (actualización) se reemplaza su intervalo
+     *
+     * @return La ocupación existente con la que colisiona, o vacío si quedó registrada
+     */
+    public Optional<Ocupacion> reservar(Long salaId, Ocupacion ocupacion) {
+        Agenda agenda = agenda(salaId);
+        synchronized (agenda) {
+            Ocupacion colision = agenda.colision(ocupacion.inicio(), ocupacion.fin(), ocupacion.funcionId());
+            if (colision != null) {
+                return Optional.of(colision);
+            }
+            Ocupacion anterior = agenda.quitar(ocupacion.funcionId());
+            agenda.agregar(ocupacion);
+            siSeRevierte(() -> {
+                synchronized (agenda) {
+                    agenda.quitar(ocupacion.funcionId());
+                    if (anterior != null) {
+                        agenda.agregar(anterior);
+                    }
+                }
+            });
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Valida un lote de funciones nuevas de una sala en una sola pasada (ordenadas por inicio):
+     * contra la agenda y entre sí. Solo si no hay colisiones se registran todas
+     *
+     * Las funciones del lote aún no tienen ID: al terminar la transacción la agenda de la sala
+     * se descarta y se recarga desde la BD en el siguiente uso
+     *
+     * @return Colisiones encontradas (vacío = lote registrado)
+     */
+    public List<Colision> reservarLote(Long salaId, List<Ocupacion> nuevas) {
+        List<Ocupacion> ordenadas = new ArrayList<>(nuevas);
+        ordenadas.sort(POR_INICIO);
+
+        Agenda agenda = agenda(salaId);
+        synchronized (agenda) {
+            List<Colision> colisiones = new ArrayList<>();
+            Ocupacion ultimaDelLote = null;
+            for (Ocupacion nueva : ordenadas) {
+                Ocupacion existente = agenda.colision(nueva.inicio(), nueva.fin(), null);
+                if (existente != null) {
+                    colisiones.add(new Colision(nueva, existente));
+                } else if (ultimaDelLote != null && ultimaDelLote.fin().isAfter(nueva.inicio())) {
+                    colisiones.add(new Colision(nueva, ultimaDelLote));
+                }
+                if (ultimaDelLote == null || nueva.fin().isAfter(ultimaDelLote.fin())) {
+                    ultimaDelLote = nueva;
+                }
+            }
+            if (colisiones.isEmpty()) {
+                ordenadas.forEach(agenda::agregar);
+                alTerminar(() -> porSala.remove(salaId, agenda));
+            }
+            return colisiones;
+        }
+    }
+
+    /**
+     * Quita una función de la agenda (al confirmarse la transacción)
+     */
+    public void liberar(Long salaId, Long funcionId) {
+        Agenda agenda = porSala.get(salaId);
+        if (agenda == null) {
+            return;
+        }
+        alConfirmar(() -> {
+            synchronized (agenda) {
+                agenda.quitar(funcionId);
+            }
+        });
+    }
+
+    /**
+     * Primer instante desde {@code desde} en el que la sala queda libre durante la duración indicada
+     * (más la limpieza)
+     */
+    public LocalDateTime siguienteHueco(Long salaId, LocalDateTime desde, Integer duracionMinutos) {
+        int minutos = (duracionMinutos != null ? duracionMinutos : DURACION_POR_DEFECTO) + BUFFER_LIMPIEZA_MINUTOS;
+
+        Agenda agenda = agenda(salaId);
+        synchronized (agenda) {
+            LocalDateTime candidato = desde;
+            for (Ocupacion ocupada : agenda.desde(desde.minusMinutes(ALCANCE_MAXIMO))) {
+                if (!ocupada.fin().isAfter(candidato)) {
+                    continue; // Terminó antes del candidato
+                }
+                if (!ocupada.inicio().isBefore(candidato.plusMinutes(minutos))) {
+                    break;    // Cabe antes de esta (y de todas las siguientes)
+                }
+                candidato = ocupada.fin();
+            }
+            return candidato;
+        }
+    }
+
+    private Agenda agenda(Long salaId) {
+        Agenda agenda = porSala.get(salaId);
+        if (agenda != null) {
+            return agenda;
+        }
+        // Fuera del computeIfAbsent: la consulta no debe ejecutarse con el bin del mapa bloqueado
+        Agenda cargada = cargar(salaId);
+        Agenda previa = porSala.putIfAbsent(salaId, cargada);
+        return previa != null ? previa : cargada;
+    }
+
+    private Agenda cargar(Long salaId) {
+        Agenda agenda = new Agenda();
+        LocalDateTime desde = LocalDateTime.now().minusMinutes(ALCANCE_MAXIMO);
+        for (Object[] fila : funcionRepository.findOcupacionSala(salaId, desde)) {
+            agenda.agregar(ocupacion((Long) fila[0], (LocalDateTime) fila[1], (Integer) fila[2]));
+        }
+        log.debug("Agenda de la sala {} cargada: {} funciones", salaId, agenda.ocupaciones.size());
+        return agenda;
+    }
+
+    private static void siSeRevierte(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static void alTerminar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                accion.run();
+            }
+        });
+    }
+
+    /**
+     * Intervalos ocupados de una sala. Acceso sincronizado sobre la propia instancia
+     */
+    private static final class Agenda {
+
+        private final NavigableSet<Ocupacion> ocupaciones = new TreeSet<>(POR_INICIO);
+        private final Map<Long, Ocupacion> porFuncion = new HashMap<>();
+
+        void agregar(Ocupacion ocupacion) {
+            ocupaciones.add(ocupacion);
+            if (ocupacion.funcionId() != null) {
+                porFuncion.put(ocupacion.funcionId(), ocupacion);
+            }
+        }
+
+        Ocupacion quitar(Long funcionId) {
+            Ocupacion ocupacion = funcionId != null ? porFuncion.remove(funcionId) : null;
+            if (ocupacion != null) {
+                ocupaciones.remove(ocupacion);
+            }
+            return ocupacion;
+        }
+
+        /**
+         * Primera ocupación que se solapa con [inicio, fin), ignorando la función indicada
+         */
+        Ocupacion colision(LocalDateTime inicio, LocalDateTime fin, Long excluir) {
+            LocalDateTime limite = inicio.minusMinutes(ALCANCE_MAXIMO);
+            // Las que empiezan antes de fin, de la más tardía a la más temprana
+            for (Ocupacion ocupada : ocupaciones.headSet(sonda(fin), false).descendingSet()) {
+                if (ocupada.inicio().isBefore(limite)) {
+                    break; // Ninguna anterior puede llegar hasta inicio
+                }
+                if (ocupada.fin().isAfter(inicio) && (excluir == null || !excluir.equals(ocupada.funcionId()))) {
+                    return ocupada;
+                }
+            }
+            return null;
+        }
+
+        NavigableSet<Ocupacion> desde(LocalDateTime instante) {
+            return ocupaciones.tailSet(sonda(instante), true);
+        }
+
+        private static Ocupacion sonda(LocalDateTime instante) {
+            return new Ocupacion(null, instante, instante);
+        }
+    }
+}
@@ -13,12 +13,25 @@ public interface AsientoService {
      */
     List<Asiento> obtenerMapaAsientos(Long funcionId);
 
+    /**
+     * 🎬 ID de la función a la que pertenece un asiento
+     * @throws IllegalArgumentException si el asiento no existe
+     */
+    Long obtenerFuncionDeAsiento(Long asientoId);
+
     /**
      * 🔒 Reserva temporalmente un asiento (5 minutos)
      * @throws IllegalStateException si el asiento no está disponible
      */
     Asiento reservarAsiento(Long asientoId);
 
+    /**
+     * 🔒 Reserva varios asientos de una función en una sola transacción (todo o nada)
+     * @throws IllegalStateException si algún asiento no está disponible
+     * @throws IllegalArgumentException si algún asiento no pertenece a la función
+     */
+    List<Asiento> reservarAsientos(Long funcionId, List<Long> asientoIds);
+
     /**
      * ✅ Confirma la reserva y marca como OCUPADO
      * @throws IllegalStateException si el asiento no está en SELECCIONADO
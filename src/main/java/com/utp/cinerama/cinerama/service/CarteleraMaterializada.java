@@ -0,0 +1,201 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utp.cinerama.cinerama.dto.ApiResponse;
+import com.utp.cinerama.cinerama.dto.CarteleraDTO;
+import com.utp.cinerama.cinerama.dto.CarteleraDTO.FuncionCartelera;
+import com.utp.cinerama.cinerama.dto.CarteleraDTO.PeliculaCartelera;
+import com.utp.cinerama.cinerama.event.AsientoCambiadoEvent;
+import com.utp.cinerama.cinerama.event.FuncionCambiadaEvent;
+import com.utp.cinerama.cinerama.event.PeliculaCambiadaEvent;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🎬 Cartelera materializada para la home pública
+ *
+ * - Estructura (películas activas + próximas funciones): se reconstruye con 2 consultas al arrancar,
+ *   al cambiar una función ({@link FuncionCambiadaEvent}) o una película ({@link PeliculaCambiadaEvent})
+ *   y periódicamente (funciones que ya pasaron, sincronizaciones con TMDb)
+ * - Asientos libres: se leen de los contadores del motor de asientos al renderizar
+ * - Documento JSON: se serializa una sola vez por versión; cada {@link AsientoCambiadoEvent}
+ *   solo incrementa la versión y el siguiente GET lo regenera (el resto recibe los mismos bytes o un 304)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CarteleraMaterializada {
+
+    private final PeliculaRepository peliculaRepository;
+    private final FuncionRepository funcionRepository;
+    private final MotorAsientos motorAsientos;
+    private final ObjectMapper objectMapper;
+
+    // Identifica el arranque: un ETag de antes de un reinicio nunca coincide con uno nuevo
+    private final String instancia = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Estructura estructura = new Estructura(List.of(), Map.of());
+    private volatile Documento documento;
+
+    /**
+     * JSON ya serializado (respuesta ApiResponse completa) con su ETag
+     */
+    public record Documento(byte[] json, String etag, long version) {}
+
+    /**
+     * Películas con sus funciones y, por función, los asientos libres según la BD
+     * (se usan si la función no está cargada en el motor de asientos)
+     */
+    private record Estructura(List<PeliculaCartelera> peliculas, Map<Long, Integer> disponiblesBD) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        reconstruir();
+    }
+
+    @Scheduled(fixedDelayString = "${cinerama.cartelera.refresco-ms:300000}",
+               initialDelayString = "${cinerama.cartelera.refresco-ms:300000}")
+    public void refrescar() {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarFuncion(FuncionCambiadaEvent evento) {
+        log.debug("Función {} modificada: reconstruyendo cartelera", evento.funcionId());
+        reconstruir();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void alCambiarPelicula(PeliculaCambiadaEvent evento) {
+        log.debug("Película {} modificada: reconstruyendo cartelera", evento.peliculaId());
+        reconstruir();
+    }
+
+    @EventListener
+    public void alCambiarAsiento(AsientoCambiadoEvent evento) {
+        // Solo importan los cambios que alteran el número de asientos libres
+        if ((evento.estadoAnterior() == EstadoAsiento.DISPONIBLE || evento.estadoNuevo() == EstadoAsiento.DISPONIBLE)
+                && estructura.disponiblesBD().containsKey(evento.funcionId())) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Documento vigente; se regenera solo si hubo cambios desde la última serialización
+     */
+    public Documento obtener() {
+        Documento actual = documento;
+        if (actual != null && actual.version() == version.get()) {
+            return actual;
+        }
+        return renderizar();
+    }
+
+    /**
+     * Recarga películas activas y próximas funciones (sala y película en el mismo SELECT)
+     */
+    public void reconstruir() {
+        List<Pelicula> activas = peliculaRepository.findByActivaTrue();
+        List<Funcion> funciones = funcionRepository.findParaCartelera(LocalDateTime.now());
+
+        Map<Long, Integer> disponiblesBD = new HashMap<>();
+        Map<Long, List<FuncionCartelera>> porPelicula = new HashMap<>();
+        for (Funcion funcion : funciones) {
+            disponiblesBD.put(funcion.getId(), funcion.getAsientosDisponibles());
+            porPelicula.computeIfAbsent(funcion.getPelicula().getId(), id -> new ArrayList<>())
+                    .add(aFuncionCartelera(funcion));
+        }
+
+        List<PeliculaCartelera> peliculas = activas.stream()
+                .sorted(Comparator.comparing(Pelicula::getPopularidad, Comparator.nullsLast(Comparator.reverseOrder())))
+                .map(p -> aPeliculaCartelera(p, porPelicula.getOrDefault(p.getId(), List.of())))
+                .toList();
+
+        estructura = new Estructura(peliculas, disponiblesBD);
+        version.incrementAndGet();
+        log.info("🎬 Cartelera reconstruida: {} películas, {} funciones", peliculas.size(), funciones.size());
+    }
+
+    private synchronized Documento renderizar() {
+        long vigente = version.get();
+        Documento actual = documento;
+        if (actual != null && actual.version() == vigente) {
+            return actual; // Otro hilo ya la regeneró
+        }
+
+        Estructura datos = estructura;
+        for (PeliculaCartelera pelicula : datos.peliculas()) {
+            for (FuncionCartelera funcion : pelicula.getFunciones()) {
+                funcion.setAsientosDisponibles(asientosLibres(funcion.getId(), datos.disponiblesBD()));
+            }
+        }
+
+        CarteleraDTO cartelera = CarteleraDTO.builder()
+                .generadaEn(LocalDateTime.now())
+                .peliculas(datos.peliculas())
+                .build();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(ApiResponse.success("Cartelera obtenida exitosamente", cartelera));
+            documento = new Documento(json, "\"" + instancia + "-" + vigente + "\"", vigente);
+            return documento;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la cartelera", e);
+        }
+    }
+
+    private int asientosLibres(Long funcionId, Map<Long, Integer> disponiblesBD) {
+        if (motorAsientos.estaCargada(funcionId)) {
+            return (int) motorAsientos.contarPorEstado(funcionId)[EstadoAsiento.DISPONIBLE.ordinal()];
+        }
+        return disponiblesBD.getOrDefault(funcionId, 0);
+    }
+
+    private FuncionCartelera aFuncionCartelera(Funcion funcion) {
+        return FuncionCartelera.builder()
+                .id(funcion.getId())
+                .fechaHora(funcion.getFechaHora())
+                .salaId(funcion.getSala().getId())
+                .sala(funcion.getSala().getNombre())
+                .tipoSala(funcion.getSala().getTipo())
+                .precioEntrada(funcion.getPrecioEntrada())
+                .asientosDisponibles(funcion.getAsientosDisponibles())
+                .asientosTotales(funcion.getAsientosTotales())
+                .build();
+    }
+
+    private PeliculaCartelera aPeliculaCartelera(Pelicula pelicula, List<FuncionCartelera> funciones) {
+        return PeliculaCartelera.builder()
+                .id(pelicula.getId())
+                .titulo(pelicula.getTitulo())
+                .genero(pelicula.getGenero())
+                .duracion(pelicula.getDuracion())
+                .clasificacion(pelicula.getClasificacion())
+                .sinopsis(pelicula.getSinopsis())
+                .posterUrl(pelicula.getPosterUrl())
+                .backdropUrl(pelicula.getBackdropUrl())
+                .fechaEstreno(pelicula.getFechaEstreno())
+                .votoPromedio(pelicula.getVotoPromedio())
+                .funciones(funciones)
+                .build();
+    }
+}
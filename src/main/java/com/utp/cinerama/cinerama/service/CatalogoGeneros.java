@@ -0,0 +1,213 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.config.TMDbConfig;
+import com.utp.cinerama.cinerama.dto.TMDbMovieDTO;
+import com.utp.cinerama.cinerama.model.Genero;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.repository.GeneroRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 🎭 Diccionario de géneros en memoria
+ *
+ * - Se siembra con los géneros conocidos de TMDbService y se completa con /genre/movie/list
+ * - Cada género ocupa un bit (0-63): los géneros de una película caben en un long (Pelicula.generosMask)
+ * - Al arrancar rellena máscara y tabla pelicula_generos de las películas guardadas antes de existir el diccionario
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogoGeneros {
+
+    private static final int MAX_GENEROS = Long.SIZE;
+
+    private static final String SQL_PENDIENTES =
+            "SELECT id, genero FROM peliculas WHERE generos_mask IS NULL";
+    private static final String SQL_ACTUALIZAR_MASCARA =
+            "UPDATE peliculas SET generos_mask = ? WHERE id = ?";
+    private static final String SQL_INSERTAR_RELACION =
+            "INSERT INTO pelicula_generos (pelicula_id, genero_id) VALUES (?, ?)";
+
+    private final GeneroRepository generoRepository;
+    private final TMDbService tmdbService;
+    private final TMDbConfig tmdbConfig;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Integer, Genero> porId = new ConcurrentHashMap<>();
+    private final Map<String, Genero> porNombre = new ConcurrentHashMap<>();
+    private final Genero[] porBit = new Genero[MAX_GENEROS];
+
+    /**
+     * Antes que el índice de búsqueda: este necesita las máscaras ya calculadas
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void inicializar() {
+        generoRepository.findAll().forEach(this::registrar);
+
+        // 1. Semilla local (sin red) y 2. lista oficial de TMDb si hay API key
+        TMDbService.GENEROS.forEach(this::agregarSiFalta);
+        if (tmdbConfig.getApiKey() != null && !tmdbConfig.getApiKey().isBlank()) {
+            try {
+                for (TMDbMovieDTO.Genre genre : tmdbService.fetchGenres()) {
+                    agregarSiFalta(genre.getId(), genre.getName());
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ No se pudo obtener la lista de géneros de TMDb: {}", e.getMessage());
+            }
+        }
+
+        int rellenadas = rellenarPeliculas();
+        log.info("🎭 Diccionario de géneros listo: {} géneros ({} películas normalizadas)", porId.size(), rellenadas);
+    }
+
+    public List<Genero> listar() {
+        return porId.values().stream()
+                .sorted(Comparator.comparing(Genero::getNombre))
+                .toList();
+    }
+
+    /**
+     * Busca un género por ID de TMDb o por nombre (sin distinguir tildes ni mayúsculas)
+     */
+    public Optional<Genero> buscar(String nombreOId) {
+        if (nombreOId == null || nombreOId.isBlank()) {
+            return Optional.empty();
+        }
+        String texto = nombreOId.trim();
+        if (texto.chars().allMatch(Character::isDigit)) {
+            return Optional.ofNullable(porId.get(Integer.valueOf(texto)));
+        }
+        return Optional.ofNullable(porNombre.get(normalizar(texto)));
+    }
+
+    public long mascaraDeIds(Collection<Integer> generoIds) {
+        long mascara = 0;
+        if (generoIds != null) {
+            for (Integer id : generoIds) {
+                Genero genero = id != null ? porId.get(id) : null;
+                if (genero != null) {
+                    mascara |= 1L << genero.getBit();
+                }
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Máscara a partir del texto concatenado de Pelicula.genero ("Acción, Comedia")
+     */
+    public long mascaraDeTexto(String generos) {
+        long mascara = 0;
+        if (generos != null) {
+            for (String nombre : generos.split(",")) {
+                Genero genero = porNombre.get(normalizar(nombre));
+                if (genero != null) {
+                    mascara |= 1L << genero.getBit();
+                }
+            }
+        }
+        return mascara;
+    }
+
+    public long mascara(Genero genero) {
+        return 1L << genero.getBit();
+    }
+
+    public List<Integer> idsDe(long mascara) {
+        List<Integer> ids = new ArrayList<>(Long.bitCount(mascara));
+        for (long resto = mascara; resto != 0; resto &= resto - 1) {
+            Genero genero = porBit[Long.numberOfTrailingZeros(resto)];
+            if (genero != null) {
+                ids.add(genero.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Asigna máscara y relaciones JPA (pelicula_generos) según el texto de Pelicula.genero
+     */
+    public void asignar(Pelicula pelicula) {
+        asignar(pelicula, mascaraDeTexto(pelicula.getGenero()));
+    }
+
+    public void asignar(Pelicula pelicula, long mascara) {
+        pelicula.setGenerosMask(mascara);
+        Set<Genero> generos = new HashSet<>();
+        for (Integer id : idsDe(mascara)) {
+            generos.add(porId.get(id));
+        }
+        if (pelicula.getGeneros() == null) {
+            pelicula.setGeneros(generos);
+        } else {
+            pelicula.getGeneros().clear();
+            pelicula.getGeneros().addAll(generos);
+        }
+    }
+
+    private synchronized void agregarSiFalta(Integer id, String nombre) {
+        if (id == null || nombre == null || porId.containsKey(id)) {
+            return;
+        }
+        int bit = porId.size();
+        if (bit >= MAX_GENEROS) {
+            log.warn("⚠️ Sin bits libres para el género {} ({})", nombre, id);
+            return;
+        }
+        registrar(generoRepository.save(Genero.builder().id(id).nombre(nombre).bit(bit).build()));
+    }
+
+    private void registrar(Genero genero) {
+        porId.put(genero.getId(), genero);
+        porNombre.put(normalizar(genero.getNombre()), genero);
+        porBit[genero.getBit()] = genero;
+    }
+
+    /**
+     * Calcula máscara y filas de pelicula_generos para las películas que aún no la tienen
+     */
+    private int rellenarPeliculas() {
+        Integer total = transactionTemplate.execute(estado -> {
+            List<Object[]> mascaras = new ArrayList<>();
+            List<Object[]> relaciones = new ArrayList<>();
+            jdbcTemplate.query(SQL_PENDIENTES, rs -> {
+                long id = rs.getLong("id");
+                long mascara = mascaraDeTexto(rs.getString("genero"));
+                mascaras.add(new Object[]{mascara, id});
+                for (Integer generoId : idsDe(mascara)) {
+                    relaciones.add(new Object[]{id, generoId});
+                }
+            });
+            if (!mascaras.isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_MASCARA, mascaras);
+                jdbcTemplate.batchUpdate(SQL_INSERTAR_RELACION, relaciones);
+            }
+            return mascaras.size();
+        });
+        return total != null ? total : 0;
+    }
+
+    private static String normalizar(String nombre) {
+        return String.join(" ", IndiceBusquedaPeliculas.tokenizar(nombre));
+    }
+}
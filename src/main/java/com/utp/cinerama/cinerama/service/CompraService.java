@@ -0,0 +1,21 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.dto.CalcularTotalDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmarCompraDTO;
+import com.utp.cinerama.cinerama.dto.TotalCompraDTO;
+
+public interface CompraService {
+
+    /**
+     * 🛒 Confirma una compra completa en una sola transacción:
+     * asientos reservados → OCUPADO, boletos, venta de productos y pago
+     * @throws IllegalStateException si algún asiento no está reservado o su reserva expiró
+     */
+    ConfirmacionCompraDTO confirmarCompra(ConfirmarCompraDTO dto);
+
+    /**
+     * 💰 Calcula el desglose de precios de una compra antes de confirmarla
+     */
+    TotalCompraDTO calcularTotal(CalcularTotalDTO dto);
+}
@@ -1,8 +1,11 @@
 package com.utp.cinerama.cinerama.service;
 
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO;
 import com.utp.cinerama.cinerama.model.Funcion;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,4 +22,6 @@ public interface FuncionService {
     List<Funcion> obtenerFuncionesPorFecha(LocalDate fecha);
     List<Funcion> obtenerFuncionesDisponibles(); // Solo funciones futuras
     List<Funcion> obtenerFuncionesDisponiblesPorPelicula(Long peliculaId); // Funciones futuras de una película
+    LocalDateTime sugerirSiguienteHorario(Long salaId, Long peliculaId, LocalDateTime desde); // Primer hueco libre de la sala
+    ResultadoProgramacionDTO programarFunciones(ProgramacionFuncionesDTO programacion); // Programación en bloque
 }
\ No newline at end of file
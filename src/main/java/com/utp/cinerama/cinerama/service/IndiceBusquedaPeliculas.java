@@ -0,0 +1,310 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 🔎 Índice invertido en memoria para la búsqueda de películas
+ *
+ * - Campos: título (x3), título original (x2), género (x1.5) y sinopsis (x1)
+ * - Normalización: minúsculas y sin tildes ("acción" = "accion", "año" = "ano")
+ * - Prefijos (edge n-grams) de título, título original y género para el autocompletado
+ * - Ranking: peso del campo x IDF por término; todos los términos deben coincidir; empate por popularidad
+ *   (se recorre el término más selectivo y se guardan los k mejores en un montículo)
+ *
+ * Se construye al arrancar y se mantiene al crear, actualizar, eliminar o sincronizar películas.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndiceBusquedaPeliculas {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float PESO_TITULO = 3f;
+    private static final float PESO_TITULO_ORIGINAL = 2f;
+    private static final float PESO_GENERO = 1.5f;
+    private static final float PESO_SINOPSIS = 1f;
+
+    // Una coincidencia por prefijo ("spid" → "spider") puntúa menos que la palabra completa
+    private static final float FACTOR_PREFIJO = 0.6f;
+    private static final int PREFIJO_MINIMO = 2;
+    private static final int PREFIJO_MAXIMO = 15;
+
+    private final PeliculaRepository peliculaRepository;
+
+    // término → (id película → peso)
+    private final Map<String, Map<Long, Float>> palabras = new HashMap<>();
+    private final Map<String, Map<Long, Float>> prefijos = new HashMap<>();
+    private final Map<Long, Documento> documentos = new HashMap<>();
+
+    // Búsquedas concurrentes; las escrituras (poco frecuentes) son exclusivas
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        List<Pelicula> peliculas = peliculaRepository.findAll();
+        candado.writeLock().lock();
+        try {
+            palabras.clear();
+            prefijos.clear();
+            documentos.clear();
+            peliculas.forEach(this::agregar);
+        } finally {
+            candado.writeLock().unlock();
+        }
+        log.info("🔎 Índice de búsqueda construido: {} películas, {} palabras, {} prefijos",
+                peliculas.size(), palabras.size(), prefijos.size());
+    }
+
+    /**
+     * Indexa (o reindexa) películas. Dentro de una transacción se aplica al confirmarse
+     */
+    public void indexar(Collection<Pelicula> peliculas) {
+        List<Pelicula> copia = List.copyOf(peliculas);
+        despuesDeCommit(() -> {
+            candado.writeLock().lock();
+            try {
+                for (Pelicula pelicula : copia) {
+                    quitar(pelicula.getId());
+                    agregar(pelicula);
+                }
+            } finally {
+                candado.writeLock().unlock();
+            }
+        });
+    }
+
+    public void indexar(Pelicula pelicula) {
+        indexar(List.of(pelicula));
+    }
+
+    public void eliminar(Long peliculaId) {
+        despuesDeCommit(() -> {
+            candado.writeLock().lock();
+            try {
+                quitar(peliculaId);
+            } finally {
+                candado.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Busca películas por texto libre. Cada palabra coincide completa o como prefijo (autocompletado)
+     *
+     * @param consulta Texto escrito por el usuario
+     * @param limite Máximo de resultados
+     * @param soloActivas Si se excluyen las películas inactivas
+     * @return Películas ordenadas por relevancia
+     */
+    public List<Pelicula> buscar(String consulta, int limite, boolean soloActivas) {
+        List<String> terminos = tokenizar(consulta);
+        if (terminos.isEmpty()) {
+            return List.of();
+        }
+
+        candado.readLock().lock();
+        try {
+            // Se recorre el término más selectivo y se comprueba el resto por búsqueda directa
+            List<Termino> porSelectividad = terminos.stream()
+                    .map(this::termino)
+                    .sorted(Comparator.comparingInt(Termino::frecuencia))
+                    .toList();
+            Termino masSelectivo = porSelectividad.get(0);
+
+            // Top-k con un montículo: no hace falta ordenar todas las coincidencias
+            Comparator<Resultado> orden = Comparator.comparingDouble(Resultado::puntaje)
+                    .thenComparing(r -> r.pelicula().getPopularidad(), Comparator.nullsFirst(Comparator.naturalOrder()));
+            PriorityQueue<Resultado> mejores = new PriorityQueue<>(limite + 1, orden);
+
+            for (Long id : masSelectivo.candidatos()) {
+                float puntaje = 0;
+                for (Termino termino : porSelectividad) {
+                    float peso = termino.peso(id);
+                    if (peso == 0) {
+                        puntaje = -1; // Todos los términos deben coincidir
+                        break;
+                    }
+                    puntaje += peso;
+                }
+                Pelicula pelicula = documentos.get(id).pelicula();
+                if (puntaje < 0 || (soloActivas && !Boolean.TRUE.equals(pelicula.getActiva()))) {
+                    continue;
+                }
+                mejores.offer(new Resultado(pelicula, puntaje));
+                if (mejores.size() > limite) {
+                    mejores.poll();
+                }
+            }
+
+            List<Resultado> ordenados = new ArrayList<>(mejores);
+            ordenados.sort(orden.reversed());
+            return ordenados.stream().map(Resultado::pelicula).toList();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtra por géneros con la máscara de bits de cada película (sin consultar la BD)
+     *
+     * @param mascara Géneros pedidos (ver CatalogoGeneros)
+     * @param todos true = debe tener todos los géneros (AND); false = al menos uno (OR)
+     * @param soloActivas Si se excluyen las películas inactivas
+     * @return Películas ordenadas por popularidad
+     */
+    public List<Pelicula> filtrarPorGeneros(long mascara, boolean todos, boolean soloActivas) {
+        candado.readLock().lock();
+        try {
+            return documentos.values().stream()
+                    .map(Documento::pelicula)
+                    .filter(p -> {
+                        long suya = p.getGenerosMask() != null ? p.getGenerosMask() : 0L;
+                        return todos ? (suya & mascara) == mascara : (suya & mascara) != 0;
+                    })
+                    .filter(p -> !soloActivas || Boolean.TRUE.equals(p.getActiva()))
+                    .sorted(Comparator.comparing(Pelicula::getPopularidad, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .toList();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes y separado en palabras
+     */
+    static List<String> tokenizar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        String plano = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARADORES.split(plano.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Postings de un término de la consulta (palabra completa y prefijo) con su IDF
+     */
+    private Termino termino(String texto) {
+        Map<Long, Float> exactas = palabras.getOrDefault(texto, Map.of());
+        Map<Long, Float> porPrefijo = prefijos.getOrDefault(texto, Map.of());
+        // Frecuencia aproximada (una película puede estar en ambas listas)
+        int frecuencia = Math.min(documentos.size(), exactas.size() + porPrefijo.size());
+        float idf = (float) Math.log(1 + (double) documentos.size() / Math.max(1, frecuencia));
+        return new Termino(exactas, porPrefijo, frecuencia, idf);
+    }
+
+    private void agregar(Pelicula pelicula) {
+        if (pelicula.getId() == null) {
+            return;
+        }
+        Set<String> susPalabras = new HashSet<>();
+        Set<String> susPrefijos = new HashSet<>();
+        agregarCampo(pelicula.getId(), pelicula.getTitulo(), PESO_TITULO, true, susPalabras, susPrefijos);
+        agregarCampo(pelicula.getId(), pelicula.getTituloOriginal(), PESO_TITULO_ORIGINAL, true, susPalabras, susPrefijos);
+        agregarCampo(pelicula.getId(), pelicula.getGenero(), PESO_GENERO, true, susPalabras, susPrefijos);
+        // La sinopsis solo por palabra completa: sus prefijos multiplicarían el tamaño del índice
+        agregarCampo(pelicula.getId(), pelicula.getSinopsis(), PESO_SINOPSIS, false, susPalabras, susPrefijos);
+        documentos.put(pelicula.getId(), new Documento(pelicula, susPalabras, susPrefijos));
+    }
+
+    private void agregarCampo(Long id, String texto, float peso, boolean conPrefijos,
+                              Set<String> susPalabras, Set<String> susPrefijos) {
+        for (String token : tokenizar(texto)) {
+            palabras.computeIfAbsent(token, t -> new HashMap<>()).merge(id, peso, Math::max);
+            susPalabras.add(token);
+            if (conPrefijos) {
+                for (int n = PREFIJO_MINIMO; n < Math.min(token.length(), PREFIJO_MAXIMO + 1); n++) {
+                    String prefijo = token.substring(0, n);
+                    prefijos.computeIfAbsent(prefijo, t -> new HashMap<>()).merge(id, peso, Math::max);
+                    susPrefijos.add(prefijo);
+                }
+            }
+        }
+    }
+
+    private void quitar(Long id) {
+        Documento documento = documentos.remove(id);
+        if (documento == null) {
+            return;
+        }
+        quitarPostings(palabras, documento.palabras(), id);
+        quitarPostings(prefijos, documento.prefijos(), id);
+    }
+
+    private static void quitarPostings(Map<String, Map<Long, Float>> indice, Set<String> terminos, Long id) {
+        for (String termino : terminos) {
+            Map<Long, Float> postings = indice.get(termino);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    indice.remove(termino);
+                }
+            }
+        }
+    }
+
+    private void despuesDeCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private record Documento(Pelicula pelicula, Set<String> palabras, Set<String> prefijos) {}
+
+    private record Resultado(Pelicula pelicula, float puntaje) {}
+
+    private record Termino(Map<Long, Float> exactas, Map<Long, Float> porPrefijo, int frecuencia, float idf) {
+
+        /**
+         * Mejor coincidencia (palabra o prefijo) x IDF; 0 si la película no contiene el término
+         */
+        float peso(Long id) {
+            float exacta = exactas.getOrDefault(id, 0f);
+            float prefijo = porPrefijo.getOrDefault(id, 0f) * FACTOR_PREFIJO;
+            return Math.max(exacta, prefijo) * idf;
+        }
+
+        Iterable<Long> candidatos() {
+            return () -> Stream.concat(
+                    exactas.keySet().stream(),
+                    porPrefijo.keySet().stream().filter(id -> !exactas.containsKey(id))).iterator();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.exception.AsientoNoDisponibleException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 📈 Métricas de negocio (Micrometer, expuestas en /actuator/prometheus)
+ *
+ * - cinerama.compras.confirmar / cinerama.asientos: latencia por operación y resultado
+ *   (ok, conflicto = otro cliente ganó el asiento, rechazado = validación o estado inválido, error).
+ *   Se miden desde el controlador, fuera del proxy transaccional, para incluir el commit. Histogramas por configuración
+ *   (management.metrics.distribution.percentiles-histogram.cinerama)
+ * - cinerama.asientos.intentos / cinerama.asientos.conflictos: contención por función. La etiqueta
+ *   "funcion" se limita a las N funciones con actividad reciente; el resto cuenta como "otras" y las
+ *   series de una función inactiva se eliminan del registro
+ * - cinerama.asientos.liberados: reservas devueltas por vencimiento o por el barrido programado
+ * - cinerama.auth.jwt: resultado de la autenticación por token en cada request
+ *
+ * Hikari (hikaricp.*), cachés (cache.*), HTTP entrante y saliente (http.server/client.requests)
+ * los instrumenta Spring Boot Actuator
+ */
+@Component
+@Slf4j
+public class MetricasNegocio {
+
+    public static final String OTRAS = "otras";
+
+    private static final String COMPRAS = "cinerama.compras.confirmar";
+    private static final String ASIENTOS = "cinerama.asientos";
+    private static final String INTENTOS = "cinerama.asientos.intentos";
+    private static final String CONFLICTOS = "cinerama.asientos.conflictos";
+
+    private final MeterRegistry registry;
+    private final int maxFunciones;
+    private final Duration inactividad;
+
+    // Funciones con etiqueta propia → último uso (System.nanoTime)
+    private final Map<Long, Etiqueta> funciones = new ConcurrentHashMap<>();
+
+    private static final class Etiqueta {
+        private final String valor;
+        private volatile long ultimoUso = System.nanoTime();
+
+        private Etiqueta(Long funcionId) {
+            this.valor = funcionId.toString();
+        }
+    }
+
+    public MetricasNegocio(MeterRegistry registry,
+                           @Value("${cinerama.metricas.max-funciones:50}") int maxFunciones,
+                           @Value("${cinerama.metricas.inactividad-funcion:15m}") Duration inactividad) {
+        this.registry = registry;
+        this.maxFunciones = maxFunciones;
+        this.inactividad = inactividad;
+    }
+
+    /**
+     * Mide la confirmación de una compra (asientos + boletos + pago)
+     */
+    public <T> T confirmarCompra(Long funcionId, Supplier<T> compra) {
+        return medir(COMPRAS, "compra", funcionId, compra);
+    }
+
+    /**
+     * Mide una operación sobre asientos: reservar, reservar-lote, confirmar
+     */
+    public <T> T asientos(String operacion, Long funcionId, Supplier<T> accion) {
+        return medir(ASIENTOS, operacion, funcionId, accion);
+    }
+
+    public void asientosLiberados(String origen, int cantidad) {
+        if (cantidad > 0) {
+            Counter.builder("cinerama.asientos.liberados")
+                    .description("Reservas vencidas devueltas a DISPONIBLE")
+                    .tag("origen", origen)
+                    .register(registry)
+                    .increment(cantidad);
+        }
+    }
+
+    /**
+     * Mide el barrido programado de reservas vencidas y cuenta lo liberado
+     */
+    public int barridoExpirados(IntSupplier barrido) {
+        Timer.Sample muestra = Timer.start(registry);
+        try {
+            int liberados = barrido.getAsInt();
+            asientosLiberados("barrido", liberados);
+            return liberados;
+        } finally {
+            muestra.stop(Timer.builder("cinerama.asientos.barrido")
+                    .description("Duración del barrido programado de reservas vencidas")
+                    .register(registry));
+        }
+    }
+
+    public void autenticacionJwt(String resultado) {
+        Counter.builder("cinerama.auth.jwt")
+                .description("Requests con token JWT por resultado de la autenticación")
+                .tag("resultado", resultado)
+                .register(registry)
+                .increment();
+    }
+
+    private <T> T medir(String nombre, String operacion, Long funcionId, Supplier<T> accion) {
+        String funcion = etiquetaFuncion(funcionId);
+        Timer.Sample muestra = Timer.start(registry);
+        String resultado = "error";
+        try {
+            T valor = accion.get();
+            resultado = "ok";
+            return valor;
+        } catch (AsientoNoDisponibleException | OptimisticLockingFailureException e) {
+            resultado = "conflicto";
+            contador(CONFLICTOS, "Intentos que perdieron el asiento frente a otro cliente", operacion, funcion)
+                    .increment();
+            throw e;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            resultado = "rechazado";
+            throw e;
+        } finally {
+            muestra.stop(Timer.builder(nombre)
+                    .tag("operacion", operacion)
+                    .tag("resultado", resultado)
+                    .register(registry));
+            contador(INTENTOS, "Intentos de tomar asientos", operacion, funcion).increment();
+        }
+    }
+
+    private Counter contador(String nombre, String descripcion, String operacion, String funcion) {
+        return Counter.builder(nombre)
+                .description(descripcion)
+                .tag("operacion", operacion)
+                .tag("funcion", funcion)
+                .register(registry);
+    }
+
+    /**
+     * ID de la función como etiqueta mientras haya cupo; si no, "otras" (cardinalidad acotada)
+     */
+    String etiquetaFuncion(Long funcionId) {
+        if (funcionId == null) {
+            return OTRAS;
+        }
+        Etiqueta etiqueta = funciones.get(funcionId);
+        if (etiqueta == null) {
+            if (funciones.size() >= maxFunciones) {
+                return OTRAS;
+            }
+            etiqueta = funciones.computeIfAbsent(funcionId, Etiqueta::new);
+        }
+        etiqueta.ultimoUso = System.nanoTime();
+        return etiqueta.valor;
+    }
+
+    /**
+     * Libera el cupo de las funciones sin actividad reciente y elimina sus series
+     */
+    @Scheduled(fixedDelayString = "${cinerama.metricas.barrido-ms:60000}",
+               initialDelayString = "${cinerama.metricas.barrido-ms:60000}")
+    public void soltarFuncionesInactivas() {
+        long limite = System.nanoTime() - inactividad.toNanos();
+        funciones.entrySet().removeIf(entrada -> {
+            if (entrada.getValue().ultimoUso - limite >= 0) {
+                return false;
+            }
+            registry.find(INTENTOS).tag("funcion", entrada.getValue().valor).meters().forEach(registry::remove);
+            registry.find(CONFLICTOS).tag("funcion", entrada.getValue().valor).meters().forEach(registry::remove);
+            log.debug("📈 Función {} sin actividad: series de métricas eliminadas", entrada.getKey());
+            return true;
+        });
+    }
+}
@@ -0,0 +1,1075 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.event.AsientoCambiadoEvent;
+import com.utp.cinerama.cinerama.exception.AsientoNoDisponibleException;
+import com.utp.cinerama.cinerama.model.Asiento;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.repository.AsientoRepository;
+import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos.Posicion;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 🎟️ Motor en memoria del estado de asientos por función
+ *
+ * Mantiene, por cada función, un arreglo compacto indexado por (fila, numero)
+ * con la ocupación actual de cada asiento. Es la fuente autoritativa para:
+ * - Mapa de asientos (no toca la BD en estado estable)
+ * - Reservas/liberaciones mediante CAS sin bloqueos de fila
+ *
+ * Persistencia:
+ * - Reservas y liberaciones: write-behind (lote periódico hacia la tabla asientos)
+ * - Confirmaciones: las escribe AsientoServiceImpl dentro de la transacción de compra
+ *
+ * Funciones dispersas (Funcion.asientosDispersos): la distribución sale de la sala y solo existen en BD
+ * los asientos que alguna vez dejaron de estar DISPONIBLE. El resto tiene un ID virtual negativo
+ * (estable, derivado de función, fila y número) y su fila se crea al reservarlo por primera vez.
+ * Hacia la API el ID de un asiento disperso es siempre el virtual; {@link #idsPersistidos} da el de BD.
+ *
+ * Cada transición publica un {@link AsientoCambiadoEvent} (stream SSE, contadores, etc.)
+ *
+ * Expiración: cada reserva se agenda en una DelayQueue por su instante de vencimiento;
+ * un hilo dedicado libera el asiento apenas vence (por ID, vía write-behind)
+ *
+ * Nota: asume una sola instancia del backend (el estado vive en esta JVM)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MotorAsientos {
+
+    // OCUPADO es terminal: el write-behind nunca debe pisar una confirmación ya escrita
+    private static final String SQL_PERSISTIR_ESTADO =
+            "UPDATE asientos SET estado = ?, reservado_por = ?, fecha_reserva = ?, fecha_expiracion_reserva = ?, " +
+            "version = version + 1 WHERE id = ? AND estado <> 'OCUPADO'";
+
+    private static final int[] TIPOS_PERSISTIR_ESTADO =
+            {Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT};
+
+    // Barrido de recuperación al iniciar: reservas que vencieron mientras el backend estaba detenido
+    private static final String SQL_LIBERAR_VENCIDAS =
+            "UPDATE asientos SET estado = 'DISPONIBLE', reservado_por = NULL, fecha_reserva = NULL, " +
+            "fecha_expiracion_reserva = NULL, version = version + 1 " +
+            "WHERE estado = 'RESERVADO' AND fecha_expiracion_reserva < ?";
+
+    // Reserva directa: la fila solo cambia si en BD sigue libre (sin SELECT previo, sin bloqueo, sin transacción)
+    private static final String SQL_RESERVAR_CONDICIONAL =
+            "UPDATE asientos SET estado = 'RESERVADO', reservado_por = ?, fecha_reserva = ?, " +
+            "fecha_expiracion_reserva = ?, version = version + 1 WHERE id = ? " +
+            "AND (estado = 'DISPONIBLE' OR (estado = 'RESERVADO' AND fecha_expiracion_reserva < ?))";
+
+    private static final int[] TIPOS_RESERVAR_CONDICIONAL =
+            {Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP, Types.BIGINT, Types.TIMESTAMP};
+
+    // Contador vivo de Funcion.asientosDisponibles: se escribe el valor absoluto del motor (idempotente)
+    private static final String SQL_PERSISTIR_DISPONIBLES =
+            "UPDATE funciones SET asientos_disponibles = ? WHERE id = ?";
+
+    private static final String SQL_MATERIALIZAR =
+            "INSERT INTO asientos (funcion_id, fila, numero, tipo, estado, precio) VALUES (?, ?, ?, ?, 'DISPONIBLE', ?)";
+
+    // ID virtual = -(funcionId * 1024 + indiceFila * 32 + numero): hasta 32 filas de 31 asientos
+    private static final long ASIENTOS_POR_FUNCION_VIRTUAL = 1024;
+    private static final int NUMEROS_POR_FILA_VIRTUAL = 32;
+
+    private final AsientoRepository asientoRepository;
+    private final FuncionRepository funcionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MetricasNegocio metricas;
+
+    private final Map<Long, MapaFuncion> mapas = new ConcurrentHashMap<>();
+    private final Map<Long, Long> funcionPorAsiento = new ConcurrentHashMap<>();
+    private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+    private final DelayQueue<Vencimiento> vencimientos = new DelayQueue<>();
+    private volatile Thread hiloExpiracion;
+
+    // ========== CARGA Y RECONSTRUCCIÓN ==========
+
+    /**
+     * Reconstruye el estado de todas las funciones futuras al iniciar la aplicación
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        int vencidas = jdbcTemplate.update(SQL_LIBERAR_VENCIDAS, LocalDateTime.now());
+        if (vencidas > 0) {
+            log.info("🧹 Liberadas {} reservas vencidas durante el reinicio", vencidas);
+        }
+        iniciarExpiracion();
+
+        // Las funciones cargadas bajo demanda antes de este evento ya tienen estado vivo: no se pisan
+        List<Funcion> funciones = funcionRepository.findFuncionesDisponibles(LocalDateTime.now()).stream()
+                .filter(funcion -> !mapas.containsKey(funcion.getId()))
+                .toList();
+        if (funciones.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<Asiento>> asientosPorFuncion = asientoRepository
+                .findByFuncionIdIn(funciones.stream().map(Funcion::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(a -> a.getFuncion().getId()));
+
+        for (Funcion funcion : funciones) {
+            MapaFuncion mapa = new MapaFuncion(funcion, asientosPorFuncion.getOrDefault(funcion.getId(), List.of()));
+            if (mapas.putIfAbsent(funcion.getId(), mapa) == null) {
+                indexar(mapa);
+            }
+        }
+
+        log.info("🎟️ Motor de asientos reconstruido: {} funciones en memoria", mapas.size());
+    }
+
+    /**
+     * Obtiene (cargando si hace falta) el mapa en memoria de una función
+     */
+    public MapaFuncion mapa(Long funcionId) {
+        MapaFuncion mapa = mapas.get(funcionId);
+        if (mapa != null) {
+            return mapa;
+        }
+        return mapas.computeIfAbsent(funcionId, this::cargar);
+    }
+
+    /**
+     * Indica si la función ya está residente en memoria
+     */
+    public boolean estaCargada(Long funcionId) {
+        return mapas.containsKey(funcionId);
+    }
+
+    /**
+     * IDs de las funciones residentes en memoria (copia)
+     */
+    public Set<Long> funcionesCargadas() {
+        return Set.copyOf(mapas.keySet());
+    }
+
+    /**
+     * Registra los asientos recién generados para una función.
+     * Si hay transacción activa, se instala al confirmar (commit) para no exponer filas sin persistir.
+     */
+    public List<Asiento> registrarFuncion(Funcion funcion, List<Asiento> asientos) {
+        MapaFuncion mapa = new MapaFuncion(funcion, asientos);
+        despuesDeCommit(() -> instalar(mapa));
+        return mapa.asientos();
+    }
+
+    /**
+     * Actualiza los datos de la función (fecha, precio, etc.) sin perder el estado de los asientos
+     */
+    public void actualizarFuncion(Funcion funcion) {
+        MapaFuncion mapa = mapas.get(funcion.getId());
+        if (mapa != null) {
+            mapa.funcion = funcion;
+        }
+    }
+
+    /**
+     * Descarta una función de memoria (por ejemplo, al eliminarla)
+     */
+    public void descartarFuncion(Long funcionId) {
+        despuesDeCommit(() -> {
+            MapaFuncion mapa = mapas.remove(funcionId);
+            if (mapa != null) {
+                for (int slot = 0; slot < mapa.ids.length; slot++) {
+                    if (mapa.ids[slot] != 0) {
+                        funcionPorAsiento.remove(mapa.ids[slot]);
+                        funcionPorAsiento.remove(mapa.persistidos.get(slot));
+                        pendientes.remove(mapa.ids[slot]);
+                    }
+                }
+            }
+        });
+    }
+
+    private MapaFuncion cargar(Long funcionId) {
+        Funcion funcion = funcionRepository.findById(funcionId)
+                .orElseThrow(() -> new IllegalArgumentException("Función no encontrada: " + funcionId));
+        List<Asiento> asientos = asientoRepository.findByFuncionIdOrderByFilaAscNumeroAsc(funcionId);
+        MapaFuncion mapa = new MapaFuncion(funcion, asientos);
+        indexar(mapa);
+        log.debug("Función {} cargada en memoria con {} asientos", funcionId, asientos.size());
+        return mapa;
+    }
+
+    private void instalar(MapaFuncion mapa) {
+        mapas.put(mapa.funcion.getId(), mapa);
+        indexar(mapa);
+    }
+
+    private void indexar(MapaFuncion mapa) {
+        for (int slot = 0; slot < mapa.ids.length; slot++) {
+            if (mapa.ids[slot] != 0) {
+                funcionPorAsiento.put(mapa.ids[slot], mapa.funcion.getId());
+                if (mapa.persistidos.get(slot) != 0) {
+                    funcionPorAsiento.put(mapa.persistidos.get(slot), mapa.funcion.getId());
+                }
+                Ocupacion ocupacion = mapa.ocupacion.get(slot);
+                if (ocupacion.estado() == EstadoAsiento.RESERVADO && ocupacion.fechaExpiracion() != null) {
+                    vencimientos.add(new Vencimiento(mapa, slot, ocupacion));
+                }
+            }
+        }
+    }
+
+    private MapaFuncion mapaDeAsiento(Long asientoId) {
+        Long funcionId = funcionPorAsiento.get(asientoId);
+        if (funcionId == null && asientoId != null && asientoId < 0) {
+            funcionId = -asientoId / ASIENTOS_POR_FUNCION_VIRTUAL; // ID virtual: la función va codificada
+        }
+        if (funcionId == null) {
+            funcionId = asientoRepository.findFuncionIdById(asientoId)
+                    .orElseThrow(() -> new IllegalArgumentException("Asiento no encontrado: " + asientoId));
+        }
+        return mapa(funcionId);
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Función a la que pertenece un asiento (copia en memoria, con sala y película)
+     */
+    public Funcion funcionDeAsiento(Long asientoId) {
+        return mapaDeAsiento(asientoId).funcion;
+    }
+
+    /**
+     * Mapa completo de asientos de una función ordenado por fila y número
+     */
+    public List<Asiento> obtenerMapa(Long funcionId) {
+        return mapa(funcionId).asientos();
+    }
+
+    /**
+     * Estado actual de un asiento
+     */
+    public Asiento obtenerAsiento(Long asientoId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        return mapa.asiento(mapa.slotDe(asientoId));
+    }
+
+    /**
+     * Estado actual de un asiento, solo si pertenece a la función indicada
+     */
+    public Optional<Asiento> obtenerAsiento(Long funcionId, Long asientoId) {
+        MapaFuncion mapa = mapa(funcionId);
+        Integer slot = mapa.slotPorId.get(asientoId);
+        return slot == null ? Optional.empty() : Optional.of(mapa.asiento(slot));
+    }
+
+    /**
+     * IDs de BD de los asientos (en funciones dispersas el ID de la API es virtual)
+     * @throws IllegalStateException si algún asiento aún no tiene fila en BD
+     */
+    public List<Long> idsPersistidos(Long funcionId, Collection<Asiento> asientos) {
+        MapaFuncion mapa = mapa(funcionId);
+        List<Long> ids = new ArrayList<>(asientos.size());
+        for (Asiento asiento : asientos) {
+            long id = mapa.persistidos.get(mapa.slotDe(asiento.getId()));
+            if (id == 0) {
+                throw new IllegalStateException("El asiento " + asiento.getCodigoAsiento() + " no está registrado en BD");
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    public Long idPersistido(Long asientoId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        long id = mapa.persistidos.get(mapa.slotDe(asientoId));
+        if (id == 0) {
+            throw new IllegalStateException("El asiento " + asientoId + " no está registrado en BD");
+        }
+        return id;
+    }
+
+    /**
+     * Conteo de asientos por estado (índice = ordinal de EstadoAsiento), sin recorrer el mapa
+     */
+    public long[] contarPorEstado(Long funcionId) {
+        LongAdder[] conteo = mapa(funcionId).conteo;
+        long[] copia = new long[conteo.length];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = conteo[i].sum();
+        }
+        return copia;
+    }
+
+    /**
+     * Asientos DISPONIBLES de la función según el motor (valor vivo de Funcion.asientosDisponibles)
+     */
+    public int asientosDisponibles(Long funcionId) {
+        return (int) mapa(funcionId).conteo[EstadoAsiento.DISPONIBLE.ordinal()].sum();
+    }
+
+    /**
+     * Verifica si el asiento (fila, numero) de la función está DISPONIBLE
+     */
+    public boolean estaDisponible(Long funcionId, String fila, Integer numero) {
+        MapaFuncion mapa = mapa(funcionId);
+        int slot = mapa.slotDe(fila, numero);
+        return slot >= 0 && mapa.ocupacion.get(slot).estaLibre(LocalDateTime.now());
+    }
+
+    // ========== TRANSICIONES (CAS) ==========
+
+    /**
+     * DISPONIBLE → RESERVADO. Una reserva vencida cuenta como disponible.
+     * @throws IllegalStateException si el asiento no está disponible
+     */
+    public Asiento reservar(Long asientoId, Long clienteId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        int slot = mapa.slotDe(asientoId);
+        materializar(mapa, slot);
+
+        while (true) {
+            LocalDateTime ahora = LocalDateTime.now();
+            Ocupacion actual = mapa.ocupacion.get(slot);
+            if (!actual.estaLibre(ahora)) {
+                throw noDisponible(mapa, slot, actual);
+            }
+            Ocupacion reserva = Ocupacion.reserva(clienteId, ahora);
+            if (mapa.ocupacion.compareAndSet(slot, actual, reserva)) {
+                pendientes.add(asientoId);
+                vencimientos.add(new Vencimiento(mapa, slot, reserva));
+                publicar(mapa, slot, actual, reserva);
+                return mapa.asiento(slot);
+            }
+        }
+    }
+
+    /**
+     * DISPONIBLE → RESERVADO escrito al instante con un único UPDATE condicional (sin write-behind).
+     * La cantidad de filas afectadas decide la carrera: si la BD ya no lo tenía libre (otra instancia
+     * o un proceso externo lo tomó), la memoria vuelve al estado previo y no hay transacción que revertir.
+     * @throws IllegalStateException si el asiento no está disponible (en memoria o en BD)
+     */
+    public Asiento reservarDirecto(Long asientoId, Long clienteId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        int slot = mapa.slotDe(asientoId);
+        materializar(mapa, slot);
+
+        LocalDateTime ahora;
+        Ocupacion actual;
+        Ocupacion reserva;
+        do {
+            ahora = LocalDateTime.now();
+            actual = mapa.ocupacion.get(slot);
+            if (!actual.estaLibre(ahora)) {
+                throw noDisponible(mapa, slot, actual);
+            }
+            reserva = Ocupacion.reserva(clienteId, ahora);
+        } while (!mapa.ocupacion.compareAndSet(slot, actual, reserva));
+
+        long idPersistido = mapa.persistidos.get(slot);
+        // Con un cambio previo aún sin escribir (p. ej. una liberación) la fila está atrasada: manda la memoria
+        boolean atrasada = pendientes.remove(mapa.ids[slot]) | pendientes.remove(idPersistido);
+        int filas;
+        try {
+            filas = atrasada
+                    ? jdbcTemplate.update(SQL_PERSISTIR_ESTADO, new Object[]{EstadoAsiento.RESERVADO.name(),
+                            clienteId, reserva.fechaReserva(), reserva.fechaExpiracion(), idPersistido},
+                            TIPOS_PERSISTIR_ESTADO)
+                    : jdbcTemplate.update(SQL_RESERVAR_CONDICIONAL, new Object[]{clienteId,
+                            reserva.fechaReserva(), reserva.fechaExpiracion(), idPersistido, ahora},
+                            TIPOS_RESERVAR_CONDICIONAL);
+        } catch (RuntimeException e) {
+            mapa.ocupacion.compareAndSet(slot, reserva, actual);
+            if (atrasada) {
+                pendientes.add(mapa.ids[slot]);
+            }
+            throw e;
+        }
+
+        if (filas == 0) {
+            mapa.ocupacion.compareAndSet(slot, reserva, actual);
+            throw new AsientoNoDisponibleException("El asiento " + mapa.codigo(slot) + " acaba de ser reservado por otra persona");
+        }
+        vencimientos.add(new Vencimiento(mapa, slot, reserva));
+        publicar(mapa, slot, actual, reserva);
+        return mapa.asiento(slot);
+    }
+
+    /**
+     * DISPONIBLE → RESERVADO para varios asientos de una función (todo o nada).
+     * Los asientos se toman en orden ascendente de ID; si alguno falla se deshacen los ya tomados.
+     * El llamador persiste el lote en su transacción; si ésta hace rollback, la memoria se revierte.
+     * @throws IllegalArgumentException si algún asiento no pertenece a la función
+     * @throws IllegalStateException si algún asiento no está disponible
+     */
+    public List<Asiento> reservarLote(Long funcionId, Collection<Long> asientoIds, Long clienteId) {
+        MapaFuncion mapa = mapa(funcionId);
+        List<Long> ordenados = asientoIds.stream().distinct().sorted().toList();
+
+        int[] slots = new int[ordenados.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Integer slot = mapa.slotPorId.get(ordenados.get(i));
+            if (slot == null) {
+                throw new IllegalArgumentException("El asiento " + ordenados.get(i) +
+                        " no pertenece a la función " + funcionId);
+            }
+            slots[i] = slot;
+        }
+        for (int slot : slots) {
+            materializar(mapa, slot);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        Ocupacion reserva = Ocupacion.reserva(clienteId, ahora);
+        Ocupacion[] previas = new Ocupacion[slots.length];
+        int tomados = 0;
+
+        try {
+            for (; tomados < slots.length; tomados++) {
+                int slot = slots[tomados];
+                while (true) {
+                    Ocupacion actual = mapa.ocupacion.get(slot);
+                    if (!actual.estaLibre(ahora)) {
+                        throw noDisponible(mapa, slot, actual);
+                    }
+                    if (mapa.ocupacion.compareAndSet(slot, actual, reserva)) {
+                        previas[tomados] = actual;
+                        break;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            for (int i = 0; i < tomados; i++) {
+                mapa.ocupacion.compareAndSet(slots[i], reserva, previas[i]);
+            }
+            throw e;
+        }
+
+        List<Asiento> reservados = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            revertirSiRollback(mapa, slots[i], reserva, previas[i]);
+            publicarAlConfirmar(mapa, slots[i], previas[i], reserva);
+            vencimientos.add(new Vencimiento(mapa, slots[i], reserva));
+            reservados.add(mapa.asiento(slots[i]));
+        }
+        return reservados;
+    }
+
+    /**
+     * RESERVADO → OCUPADO para varios asientos de una función (todo o nada, orden ascendente de ID).
+     * Igual que {@link #confirmar(Long)}, se revierte si la transacción de compra hace rollback.
+     * @throws IllegalArgumentException si algún asiento no pertenece a la función
+     * @throws IllegalStateException si algún asiento no está reservado o su reserva expiró
+     */
+    public List<Asiento> confirmarLote(Long funcionId, Collection<Long> asientoIds) {
+        MapaFuncion mapa = mapa(funcionId);
+        List<Long> ordenados = asientoIds.stream().distinct().sorted().toList();
+
+        int[] slots = new int[ordenados.size()];
+        for (int i = 0; i < slots.length; i++) {
+            Integer slot = mapa.slotPorId.get(ordenados.get(i));
+            if (slot == null) {
+                throw new IllegalArgumentException("El asiento " + ordenados.get(i) +
+                        " no pertenece a la función " + funcionId);
+            }
+            slots[i] = slot;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        Ocupacion[] previas = new Ocupacion[slots.length];
+        Ocupacion[] nuevas = new Ocupacion[slots.length];
+        int tomados = 0;
+
+        try {
+            for (; tomados < slots.length; tomados++) {
+                int slot = slots[tomados];
+                while (true) {
+                    Ocupacion actual = mapa.ocupacion.get(slot);
+                    if (actual.estado() != EstadoAsiento.RESERVADO) {
+                        throw new IllegalStateException("El asiento " + mapa.codigo(slot) +
+                                " no está reservado. Estado actual: " + actual.estado());
+                    }
+                    if (actual.expirada(ahora)) {
+                        throw new IllegalStateException("La reserva del asiento " + mapa.codigo(slot) +
+                                " expiró. Por favor, vuelva a seleccionar el asiento.");
+                    }
+                    Ocupacion ocupado = actual.confirmada();
+                    if (mapa.ocupacion.compareAndSet(slot, actual, ocupado)) {
+                        previas[tomados] = actual;
+                        nuevas[tomados] = ocupado;
+                        break;
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            for (int i = 0; i < tomados; i++) {
+                mapa.ocupacion.compareAndSet(slots[i], nuevas[i], previas[i]);
+            }
+            throw e;
+        }
+
+        List<Asiento> confirmados = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            revertirSiRollback(mapa, slots[i], nuevas[i], previas[i]);
+            publicarAlConfirmar(mapa, slots[i], previas[i], nuevas[i]);
+            confirmados.add(mapa.asiento(slots[i]));
+        }
+        return confirmados;
+    }
+
+    /**
+     * RESERVADO → OCUPADO. El llamador persiste el cambio dentro de su transacción;
+     * si ésta hace rollback, la memoria vuelve a la reserva previa.
+     * @throws IllegalStateException si no está reservado o la reserva expiró
+     */
+    public Asiento confirmar(Long asientoId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        int slot = mapa.slotDe(asientoId);
+
+        while (true) {
+            Ocupacion actual = mapa.ocupacion.get(slot);
+            if (actual.estado() != EstadoAsiento.RESERVADO) {
+                throw new IllegalStateException("El asiento no está reservado. Estado actual: " + actual.estado());
+            }
+            if (actual.expirada(LocalDateTime.now())) {
+                // Expiró, liberar automáticamente
+                if (mapa.ocupacion.compareAndSet(slot, actual, Ocupacion.LIBRE)) {
+                    pendientes.add(asientoId);
+                    publicar(mapa, slot, actual, Ocupacion.LIBRE);
+                }
+                throw new IllegalStateException("La reserva expiró. Por favor, vuelva a seleccionar el asiento.");
+            }
+            Ocupacion ocupado = actual.confirmada();
+            if (mapa.ocupacion.compareAndSet(slot, actual, ocupado)) {
+                revertirSiRollback(mapa, slot, ocupado, actual);
+                publicarAlConfirmar(mapa, slot, actual, ocupado);
+                return mapa.asiento(slot);
+            }
+        }
+    }
+
+    /**
+     * RESERVADO → DISPONIBLE
+     * @throws IllegalStateException si el asiento no está reservado
+     */
+    public Asiento liberar(Long asientoId) {
+        MapaFuncion mapa = mapaDeAsiento(asientoId);
+        int slot = mapa.slotDe(asientoId);
+
+        while (true) {
+            Ocupacion actual = mapa.ocupacion.get(slot);
+            if (actual.estado() != EstadoAsiento.RESERVADO) {
+                throw new IllegalStateException("Solo se pueden liberar asientos reservados");
+            }
+            if (mapa.ocupacion.compareAndSet(slot, actual, Ocupacion.LIBRE)) {
+                pendientes.add(asientoId);
+                publicar(mapa, slot, actual, Ocupacion.LIBRE);
+                return mapa.asiento(slot);
+            }
+        }
+    }
+
+    /**
+     * Libera en memoria todas las reservas vencidas de las funciones residentes
+     * @return cantidad de asientos liberados
+     */
+    public int liberarExpirados() {
+        // Red de seguridad: normalmente la DelayQueue ya liberó todo lo vencido
+        LocalDateTime ahora = LocalDateTime.now();
+        int liberados = 0;
+        for (MapaFuncion mapa : mapas.values()) {
+            for (int slot = 0; slot < mapa.ids.length; slot++) {
+                if (mapa.ids[slot] == 0) continue; // hueco de la última fila incompleta
+                Ocupacion actual = mapa.ocupacion.get(slot);
+                if (actual.expirada(ahora) && mapa.ocupacion.compareAndSet(slot, actual, Ocupacion.LIBRE)) {
+                    pendientes.add(mapa.ids[slot]);
+                    publicar(mapa, slot, actual, Ocupacion.LIBRE);
+                    liberados++;
+                }
+            }
+        }
+        return liberados;
+    }
+
+    /**
+     * Otro cliente tiene el asiento (conflicto); un asiento BLOQUEADO en cambio es un rechazo
+     */
+    private static IllegalStateException noDisponible(MapaFuncion mapa, int slot, Ocupacion actual) {
+        String mensaje = "El asiento " + mapa.codigo(slot) + " no está disponible. Estado actual: " + actual.estado();
+        return actual.estado() == EstadoAsiento.BLOQUEADO
+                ? new IllegalStateException(mensaje)
+                : new AsientoNoDisponibleException(mensaje);
+    }
+
+    /**
+     * Funciones dispersas: crea la fila del asiento en BD antes de que deje de estar DISPONIBLE.
+     * Dentro de una transacción, si ésta se revierte el asiento vuelve a ser solo virtual
+     */
+    private void materializar(MapaFuncion mapa, int slot) {
+        if (mapa.persistidos.get(slot) != 0) {
+            return;
+        }
+        synchronized (mapa) {
+            if (mapa.persistidos.get(slot) != 0) {
+                return;
+            }
+            KeyHolder claves = new GeneratedKeyHolder();
+            jdbcTemplate.update(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(SQL_MATERIALIZAR, Statement.RETURN_GENERATED_KEYS);
+                ps.setLong(1, mapa.funcion.getId());
+                ps.setString(2, mapa.fila(slot));
+                ps.setInt(3, mapa.numero(slot));
+                ps.setString(4, mapa.tipos[slot].name());
+                ps.setDouble(5, mapa.precios[slot]);
+                return ps;
+            }, claves);
+
+            long id = claves.getKey().longValue();
+            mapa.persistidos.set(slot, id);
+            mapa.slotPorId.put(id, slot);
+            funcionPorAsiento.put(id, mapa.funcion.getId());
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status != STATUS_COMMITTED && mapa.persistidos.compareAndSet(slot, id, 0)) {
+                            mapa.slotPorId.remove(id);
+                            funcionPorAsiento.remove(id);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void revertirSiRollback(MapaFuncion mapa, int slot, Ocupacion nueva, Ocupacion previa) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    mapa.ocupacion.compareAndSet(slot, nueva, previa);
+                }
+            }
+        });
+    }
+
+    // ========== EXPIRACIÓN ==========
+
+    private synchronized void iniciarExpiracion() {
+        if (hiloExpiracion == null) {
+            hiloExpiracion = Thread.ofPlatform().daemon().name("expiracion-asientos").start(this::procesarVencimientos);
+        }
+    }
+
+    private void procesarVencimientos() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                vencer(vencimientos.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("❌ Error al liberar reserva vencida: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Libera la reserva solo si sigue siendo exactamente la agendada
+     * (si se confirmó, liberó o re-reservó, el CAS falla y no pasa nada)
+     */
+    private void vencer(Vencimiento vencimiento) {
+        MapaFuncion mapa = vencimiento.mapa();
+        if (mapas.get(mapa.funcion.getId()) != mapa) {
+            return;
+        }
+        if (mapa.ocupacion.compareAndSet(vencimiento.slot(), vencimiento.reserva(), Ocupacion.LIBRE)) {
+            pendientes.add(mapa.ids[vencimiento.slot()]);
+            publicar(mapa, vencimiento.slot(), vencimiento.reserva(), Ocupacion.LIBRE);
+            metricas.asientosLiberados("vencimiento", 1);
+            log.debug("⏰ Reserva vencida liberada: asiento {}", mapa.ids[vencimiento.slot()]);
+        }
+    }
+
+    private void publicar(MapaFuncion mapa, int slot, Ocupacion anterior, Ocupacion nueva) {
+        mapa.contar(anterior.estado(), nueva.estado());
+        eventPublisher.publishEvent(new AsientoCambiadoEvent(
+                mapa.funcion.getId(), mapa.ids[slot], anterior.estado(), nueva.estado()));
+    }
+
+    /**
+     * Publica el cambio solo si la transacción confirma (en rollback la memoria se revierte sin evento)
+     */
+    private void publicarAlConfirmar(MapaFuncion mapa, int slot, Ocupacion anterior, Ocupacion nueva) {
+        despuesDeCommit(() -> publicar(mapa, slot, anterior, nueva));
+    }
+
+    private void despuesDeCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    // ========== WRITE-BEHIND ==========
+
+    /**
+     * Persiste en lote los asientos modificados en memoria y los contadores de disponibles de sus funciones
+     */
+    @Scheduled(fixedDelayString = "${cinerama.asientos.write-behind-ms:250}")
+    public void persistirPendientes() {
+        persistirAsientos();
+        persistirDisponibles();
+    }
+
+    private void persistirAsientos() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        List<Long> lote = new ArrayList<>();
+        List<Object[]> parametros = new ArrayList<>();
+        for (Long asientoId : pendientes) {
+            pendientes.remove(asientoId);
+            Long funcionId = funcionPorAsiento.get(asientoId);
+            MapaFuncion mapa = funcionId != null ? mapas.get(funcionId) : null;
+            if (mapa == null) {
+                continue;
+            }
+            int slot = mapa.slotDe(asientoId);
+            long idPersistido = mapa.persistidos.get(slot);
+            if (idPersistido == 0) {
+                continue; // Asiento virtual que volvió a DISPONIBLE sin llegar a BD
+            }
+            Ocupacion ocupacion = mapa.ocupacion.get(slot);
+            lote.add(asientoId);
+            parametros.add(new Object[]{
+                    ocupacion.estado().name(),
+                    ocupacion.reservadoPor(),
+                    ocupacion.fechaReserva(),
+                    ocupacion.fechaExpiracion(),
+                    idPersistido
+            });
+        }
+
+        if (parametros.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_PERSISTIR_ESTADO, parametros, TIPOS_PERSISTIR_ESTADO);
+            log.debug("💾 Persistidos {} asientos (write-behind)", parametros.size());
+        } catch (Exception e) {
+            log.error("❌ Error al persistir asientos, se reintentará: {}", e.getMessage());
+            pendientes.addAll(lote);
+        }
+    }
+
+    /**
+     * Un UPDATE por función cuyo número de asientos libres cambió (en lote), sin contar filas en BD
+     */
+    private void persistirDisponibles() {
+        List<MapaFuncion> lote = new ArrayList<>();
+        List<Object[]> parametros = new ArrayList<>();
+        for (MapaFuncion mapa : mapas.values()) {
+            if (mapa.disponiblesPendientes.getAndSet(false)) {
+                lote.add(mapa);
+                parametros.add(new Object[]{
+                        mapa.conteo[EstadoAsiento.DISPONIBLE.ordinal()].sum(),
+                        mapa.funcion.getId()
+                });
+            }
+        }
+
+        if (parametros.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(SQL_PERSISTIR_DISPONIBLES, parametros);
+            log.debug("💾 Actualizados asientos disponibles de {} funciones", parametros.size());
+        } catch (Exception e) {
+            log.error("❌ Error al persistir asientos disponibles, se reintentará: {}", e.getMessage());
+            lote.forEach(mapa -> mapa.disponiblesPendientes.set(true));
+        }
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        if (hiloExpiracion != null) {
+            hiloExpiracion.interrupt();
+        }
+        persistirPendientes();
+    }
+
+    // ========== ESTRUCTURAS ==========
+
+    /**
+     * Ocupación inmutable de un asiento (se reemplaza por CAS en cada transición)
+     */
+    public record Ocupacion(
+            EstadoAsiento estado,
+            Long reservadoPor,
+            LocalDateTime fechaReserva,
+            LocalDateTime fechaExpiracion
+    ) {
+        public static final Ocupacion LIBRE = new Ocupacion(EstadoAsiento.DISPONIBLE, null, null, null);
+        public static final Ocupacion BLOQUEADO = new Ocupacion(EstadoAsiento.BLOQUEADO, null, null, null);
+
+        static Ocupacion reserva(Long clienteId, LocalDateTime ahora) {
+            return new Ocupacion(EstadoAsiento.RESERVADO, clienteId, ahora,
+                    ahora.plusMinutes(Asiento.MINUTOS_RESERVA));
+        }
+
+        static Ocupacion de(Asiento asiento) {
+            if (asiento.getEstado() == EstadoAsiento.DISPONIBLE) {
+                return LIBRE;
+            }
+            if (asiento.getEstado() == EstadoAsiento.BLOQUEADO) {
+                return BLOQUEADO;
+            }
+            return new Ocupacion(asiento.getEstado(), asiento.getReservadoPor(),
+                    asiento.getFechaReserva(), asiento.getFechaExpiracionReserva());
+        }
+
+        Ocupacion confirmada() {
+            return new Ocupacion(EstadoAsiento.OCUPADO, reservadoPor, fechaReserva, null);
+        }
+
+        public boolean expirada(LocalDateTime ahora) {
+            return estado == EstadoAsiento.RESERVADO && fechaExpiracion != null && ahora.isAfter(fechaExpiracion);
+        }
+
+        public boolean estaLibre(LocalDateTime ahora) {
+            return estado == EstadoAsiento.DISPONIBLE || expirada(ahora);
+        }
+    }
+
+    /**
+     * Reserva agendada para liberarse en su instante de vencimiento
+     */
+    record Vencimiento(MapaFuncion mapa, int slot, Ocupacion reserva) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), reserva.fechaExpiracion()));
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            if (otro instanceof Vencimiento vencimiento) {
+                return reserva.fechaExpiracion().compareTo(vencimiento.reserva.fechaExpiracion());
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), otro.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * Estado de asientos de una función: arreglos paralelos indexados por
+     * slot = indiceFila * asientosPorFila + (numero - 1)
+     */
+    public static final class MapaFuncion {
+
+        private volatile Funcion funcion;
+        private final String[] filas;
+        private final Map<String, Integer> indiceFila;
+        private final int asientosPorFila;
+        private final long[] ids;                 // ID expuesto (virtual en funciones dispersas)
+        private final AtomicLongArray persistidos; // ID en BD; 0 = asiento aún sin fila
+        private final TipoAsiento[] tipos;
+        private final double[] precios;
+        private final AtomicReferenceArray<Ocupacion> ocupacion;
+        private final Map<Long, Integer> slotPorId; // ID expuesto y de BD → slot
+        // Asientos por estado; se actualiza en cada transición publicada (mismo orden que los eventos).
+        // LongAdder: en funciones muy concurridas los hilos no compiten por la misma celda
+        private final LongAdder[] conteo = new LongAdder[EstadoAsiento.values().length];
+        // true = asientos_disponibles de la función está desactualizado en BD (al cargar se reconcilia)
+        private final AtomicBoolean disponiblesPendientes = new AtomicBoolean(true);
+
+        MapaFuncion(Funcion funcion, Collection<Asiento> asientos) {
+            this.funcion = funcion;
+
+            // Dispersa: la distribución sale de la sala; las filas de BD solo cubren los asientos tocados
+            boolean dispersa = Boolean.TRUE.equals(funcion.getAsientosDispersos());
+            List<Posicion> distribucion = dispersa
+                    ? DistribucionAsientos.generar(funcion.getSala().getCapacidad())
+                    : List.of();
+
+            TreeSet<String> nombresFila = new TreeSet<>();
+            int maxNumero = 1;
+            for (Posicion posicion : distribucion) {
+                nombresFila.add(posicion.fila());
+                maxNumero = Math.max(maxNumero, posicion.numero());
+            }
+            for (Asiento asiento : asientos) {
+                nombresFila.add(asiento.getFila());
+                maxNumero = Math.max(maxNumero, asiento.getNumero());
+            }
+
+            this.filas = nombresFila.toArray(String[]::new);
+            this.indiceFila = new HashMap<>();
+            for (int i = 0; i < filas.length; i++) {
+                indiceFila.put(filas[i], i);
+            }
+            this.asientosPorFila = maxNumero;
+
+            int total = filas.length * asientosPorFila;
+            this.ids = new long[total];
+            this.persistidos = new AtomicLongArray(total);
+            this.tipos = new TipoAsiento[total];
+            this.precios = new double[total];
+            this.ocupacion = new AtomicReferenceArray<>(total);
+            this.slotPorId = new ConcurrentHashMap<>((asientos.size() + distribucion.size()) * 2);
+
+            double precioBase = dispersa ? funcion.getPrecioEntrada().doubleValue() : 0;
+            for (Posicion posicion : distribucion) {
+                int slot = indice(posicion.fila(), posicion.numero());
+                ids[slot] = idVirtual(funcion.getId(), posicion.fila(), posicion.numero());
+                tipos[slot] = TipoAsiento.NORMAL;
+                precios[slot] = precioBase * TipoAsiento.NORMAL.getMultiplicadorPrecio();
+                ocupacion.set(slot, Ocupacion.LIBRE);
+                slotPorId.put(ids[slot], slot);
+            }
+
+            for (Asiento asiento : asientos) {
+                int slot = indice(asiento.getFila(), asiento.getNumero());
+                ids[slot] = dispersa ? idVirtual(funcion.getId(), asiento.getFila(), asiento.getNumero()) : asiento.getId();
+                persistidos.set(slot, asiento.getId());
+                tipos[slot] = asiento.getTipo();
+                precios[slot] = asiento.getPrecio();
+                ocupacion.set(slot, Ocupacion.de(asiento));
+                slotPorId.put(ids[slot], slot);
+                slotPorId.put(asiento.getId(), slot);
+            }
+
+            for (int i = 0; i < conteo.length; i++) {
+                conteo[i] = new LongAdder();
+            }
+            for (int slot = 0; slot < total; slot++) {
+                if (ids[slot] != 0) {
+                    conteo[ocupacion.get(slot).estado().ordinal()].increment();
+                }
+            }
+        }
+
+        private static long idVirtual(Long funcionId, String fila, int numero) {
+            return -(funcionId * ASIENTOS_POR_FUNCION_VIRTUAL + (fila.charAt(0) - 'A') * NUMEROS_POR_FILA_VIRTUAL + numero);
+        }
+
+        private int indice(String fila, int numero) {
+            return indiceFila.get(fila) * asientosPorFila + (numero - 1);
+        }
+
+        String fila(int slot) {
+            return filas[slot / asientosPorFila];
+        }
+
+        int numero(int slot) {
+            return slot % asientosPorFila + 1;
+        }
+
+        public Funcion getFuncion() {
+            return funcion;
+        }
+
+        void contar(EstadoAsiento anterior, EstadoAsiento nuevo) {
+            if (anterior != nuevo) {
+                conteo[anterior.ordinal()].decrement();
+                conteo[nuevo.ordinal()].increment();
+                if (anterior == EstadoAsiento.DISPONIBLE || nuevo == EstadoAsiento.DISPONIBLE) {
+                    disponiblesPendientes.set(true);
+                }
+            }
+        }
+
+        int slotDe(String fila, Integer numero) {
+            Integer indice = indiceFila.get(fila);
+            if (indice == null || numero == null || numero < 1 || numero > asientosPorFila) {
+                return -1;
+            }
+            int slot = indice * asientosPorFila + (numero - 1);
+            return ids[slot] != 0 ? slot : -1;
+        }
+
+        int slotDe(Long asientoId) {
+            Integer slot = slotPorId.get(asientoId);
+            if (slot == null) {
+                throw new IllegalArgumentException("Asiento no encontrado: " + asientoId);
+            }
+            return slot;
+        }
+
+        String codigo(int slot) {
+            return filas[slot / asientosPorFila] + (slot % asientosPorFila + 1);
+        }
+
+        Asiento asiento(int slot) {
+            Ocupacion actual = ocupacion.get(slot);
+            return Asiento.builder()
+                    .id(ids[slot])
+                    .funcion(funcion)
+                    .fila(filas[slot / asientosPorFila])
+                    .numero(slot % asientosPorFila + 1)
+                    .tipo(tipos[slot])
+                    .estado(actual.estado())
+                    .precio(precios[slot])
+                    .reservadoPor(actual.reservadoPor())
+                    .fechaReserva(actual.fechaReserva())
+                    .fechaExpiracionReserva(actual.fechaExpiracion())
+                    .build();
+        }
+
+        List<Asiento> asientos() {
+            List<Asiento> resultado = new ArrayList<>(slotPorId.size());
+            for (int slot = 0; slot < ids.length; slot++) {
+                if (ids[slot] != 0) {
+                    resultado.add(asiento(slot));
+                }
+            }
+            return resultado;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.utp.cinerama.cinerama.service;
 
+import com.utp.cinerama.cinerama.dto.PagedResponse;
 import com.utp.cinerama.cinerama.dto.SyncResponseDTO;
+import com.utp.cinerama.cinerama.model.Genero;
 import com.utp.cinerama.cinerama.model.Pelicula;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,14 +20,20 @@ public interface PeliculaService {
     List<Pelicula> buscarPorGenero(String genero);
     List<Pelicula> buscarPorTitulo(String titulo);
     List<Pelicula> buscarPorClasificacion(String clasificacion);
+    List<Pelicula> buscar(String consulta, int limite, boolean soloActivas);
+    List<Pelicula> filtrarPorGeneros(List<String> generos, boolean todos, boolean soloActivas);
+    List<Genero> obtenerGeneros();
     
     // Nuevos metodos CON paginacion
     Page<Pelicula> obtenerPeliculasPaginadas(int page, int size, String sortBy);
+    Slice<Pelicula> obtenerPeliculasSinTotal(int page, int size, String sortBy);
+    PagedResponse<Pelicula> obtenerPeliculasPorCursor(String orden, String cursor, int size, boolean soloActivas);
     Page<Pelicula> buscarPorGeneroPaginado(String genero, int page, int size);
     Page<Pelicula> buscarPorTituloPaginado(String titulo, int page, int size);
     
     // Metodos para integracion con TMDb
     SyncResponseDTO sincronizarPeliculasDesdeAPI(Integer paginas);
+    SyncResponseDTO sincronizarCambiosDesdeAPI();
     Pelicula agregarPeliculaDesdeTMDb(Long tmdbId);
     List<Pelicula> obtenerPeliculasActivas();
     List<Pelicula> obtenerPeliculasPorPopularidad();
@@ -0,0 +1,294 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO;
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO.Bloque;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO.Conflicto;
+import com.utp.cinerama.cinerama.event.FuncionCambiadaEvent;
+import com.utp.cinerama.cinerama.exception.BadRequestException;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.model.Sala;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import com.utp.cinerama.cinerama.repository.SalaRepository;
+import com.utp.cinerama.cinerama.service.AgendaSalas.Colision;
+import com.utp.cinerama.cinerama.service.AgendaSalas.Ocupacion;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos.Posicion;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 📅 Programación de funciones en bloque (por ejemplo, la semana completa de todas las salas)
+ *
+ * 1. Expande la plantilla (bloques sala + película + horarios) sobre el rango de fechas
+ * 2. Valida todas las colisiones en memoria con la agenda de salas (una pasada ordenada por sala)
+ * 3. Inserta funciones y asientos con JDBC batch, en una sola transacción
+ *
+ * Devuelve los conflictos por horario; con {@code parcial = false} no se crea nada si hay alguno.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProgramadorFunciones {
+
+    private static final int MAX_DIAS = 31;
+    private static final int MAX_FUNCIONES = 5000;
+    private static final int TAMANO_LOTE_ASIENTOS = 1000;
+
+    private static final String SQL_INSERTAR_FUNCION =
+            "INSERT INTO funciones (sala_id, pelicula_id, fecha_hora, asientos_disponibles, asientos_totales, " +
+            "precio_entrada, asientos_dispersos) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_INSERTAR_ASIENTO =
+            "INSERT INTO asientos (funcion_id, fila, numero, tipo, estado, precio) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final SalaRepository salaRepository;
+    private final PeliculaRepository peliculaRepository;
+    private final AgendaSalas agendaSalas;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${cinerama.asientos.dispersos:false}")
+    private boolean asientosDispersos;
+
+    /**
+     * Horario expandido de la plantilla, listo para validar e insertar
+     */
+    private record Candidata(Sala sala, Pelicula pelicula, LocalDateTime fechaHora, BigDecimal precio, Ocupacion ocupacion) {}
+
+    public ResultadoProgramacionDTO programar(ProgramacionFuncionesDTO dto) {
+        long inicio = System.nanoTime();
+        if (dto.getFechaFin().isBefore(dto.getFechaInicio())) {
+            throw new BadRequestException("La fecha de fin no puede ser anterior a la fecha de inicio");
+        }
+        if (ChronoUnit.DAYS.between(dto.getFechaInicio(), dto.getFechaFin()) >= MAX_DIAS) {
+            throw new BadRequestException("El rango de fechas no puede superar " + MAX_DIAS + " días");
+        }
+
+        ResultadoProgramacionDTO resultado = transactionTemplate.execute(estado -> ejecutar(dto));
+        resultado.setDuracionMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+        log.info("📅 Programación en bloque: {} solicitadas, {} creadas, {} conflictos en {} ms",
+                resultado.getFuncionesSolicitadas(), resultado.getFuncionesCreadas(),
+                resultado.getConflictos().size(), resultado.getDuracionMs());
+        return resultado;
+    }
+
+    private ResultadoProgramacionDTO ejecutar(ProgramacionFuncionesDTO dto) {
+        List<Conflicto> conflictos = new ArrayList<>();
+        List<Candidata> candidatas = expandir(dto, conflictos);
+        int solicitadas = candidatas.size() + conflictos.size();
+
+        // Colisiones: una pasada por sala contra la agenda y dentro del propio lote
+        Map<Long, List<Candidata>> porSala = candidatas.stream()
+                .collect(Collectors.groupingBy(c -> c.sala().getId(), LinkedHashMap::new, Collectors.toList()));
+        List<Candidata> aceptadas = new ArrayList<>();
+        for (Map.Entry<Long, List<Candidata>> entrada : porSala.entrySet()) {
+            aceptadas.addAll(reservar(entrada.getKey(), entrada.getValue(), dto.isParcial(), conflictos));
+        }
+
+        if (!dto.isParcial() && !conflictos.isEmpty()) {
+            return ResultadoProgramacionDTO.builder()
+                    .funcionesSolicitadas(solicitadas)
+                    .funcionesCreadas(0)
+                    .asientosGenerados(0)
+                    .conflictos(conflictos)
+                    .mensaje("No se creó ninguna función: hay " + conflictos.size() + " conflictos")
+                    .build();
+        }
+
+        int asientos = insertar(aceptadas);
+        if (!aceptadas.isEmpty()) {
+            eventPublisher.publishEvent(new FuncionCambiadaEvent(null));
+        }
+        return ResultadoProgramacionDTO.builder()
+                .funcionesSolicitadas(solicitadas)
+                .funcionesCreadas(aceptadas.size())
+                .asientosGenerados(asientos)
+                .conflictos(conflictos)
+                .mensaje("Programación completada: " + aceptadas.size() + " funciones creadas")
+                .build();
+    }
+
+    /**
+     * Bloques x días x horarios. Lo que no se puede programar (sala o película inexistente,
+     * sala inactiva, horario pasado) se reporta como conflicto sin llegar a la agenda
+     */
+    private List<Candidata> expandir(ProgramacionFuncionesDTO dto, List<Conflicto> conflictos) {
+        Map<Long, Sala> salas = salaRepository.findAllById(
+                        dto.getBloques().stream().map(Bloque::getSalaId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Sala::getId, Function.identity()));
+        Map<Long, Pelicula> peliculas = peliculaRepository.findAllById(
+                        dto.getBloques().stream().map(Bloque::getPeliculaId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Pelicula::getId, Function.identity()));
+
+        Set<DayOfWeek> dias = dto.getDiasSemana();
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Candidata> candidatas = new ArrayList<>();
+
+        for (Bloque bloque : dto.getBloques()) {
+            Sala sala = salas.get(bloque.getSalaId());
+            Pelicula pelicula = peliculas.get(bloque.getPeliculaId());
+            BigDecimal precio = bloque.getPrecioEntrada() != null ? bloque.getPrecioEntrada() : dto.getPrecioEntrada();
+
+            for (LocalDate fecha = dto.getFechaInicio(); !fecha.isAfter(dto.getFechaFin()); fecha = fecha.plusDays(1)) {
+                if (dias != null && !dias.isEmpty() && !dias.contains(fecha.getDayOfWeek())) {
+                    continue;
+                }
+                for (LocalTime hora : bloque.getHorarios()) {
+                    LocalDateTime fechaHora = fecha.atTime(hora);
+                    String motivo = sala == null ? "La sala no existe"
+                            : !Boolean.TRUE.equals(sala.getActiva()) ? "La sala está inactiva"
+                            : pelicula == null ? "La película no existe"
+                            : !fechaHora.isAfter(ahora) ? "El horario ya pasó"
+                            : null;
+                    if (motivo != null) {
+                        conflictos.add(conflicto(bloque.getSalaId(), bloque.getPeliculaId(), fechaHora, motivo));
+                        continue;
+                    }
+                    candidatas.add(new Candidata(sala, pelicula, fechaHora, precio,
+                            AgendaSalas.ocupacion(null, fechaHora, pelicula.getDuracion())));
+                }
+            }
+            if (candidatas.size() + conflictos.size() > MAX_FUNCIONES) {
+                throw new BadRequestException("La programación no puede superar " + MAX_FUNCIONES + " funciones");
+            }
+        }
+        return candidatas;
+    }
+
+    /**
+     * Reserva en la agenda las candidatas de una sala. En modo parcial descarta las que chocan
+     * y reintenta con el resto; en modo todo o nada se limita a reportarlas
+     */
+    private List<Candidata> reservar(Long salaId, List<Candidata> candidatas, boolean parcial, List<Conflicto> conflictos) {
+        List<Candidata> pendientes = new ArrayList<>(candidatas);
+        while (!pendientes.isEmpty()) {
+            // Por identidad: dos horarios repetidos en la plantilla son records iguales
+            Map<Ocupacion, Candidata> porOcupacion = new IdentityHashMap<>();
+            pendientes.forEach(c -> porOcupacion.put(c.ocupacion(), c));
+
+            List<Colision> colisiones = agendaSalas.reservarLote(salaId, pendientes.stream().map(Candidata::ocupacion).toList());
+            if (colisiones.isEmpty()) {
+                return pendientes;
+            }
+            for (Colision colision : colisiones) {
+                Candidata candidata = porOcupacion.get(colision.nueva());
+                conflictos.add(conflicto(salaId, candidata.pelicula().getId(), candidata.fechaHora(), motivo(colision.existente())));
+                pendientes.remove(candidata);
+            }
+            if (!parcial) {
+                return List.of();
+            }
+        }
+        return pendientes;
+    }
+
+    /**
+     * Inserta las funciones (recuperando sus IDs) y después sus asientos, ambos con JDBC batch
+     * (en modo disperso solo las funciones)
+     *
+     * @return Número de filas de asientos insertadas
+     */
+    private int insertar(List<Candidata> aceptadas) {
+        if (aceptadas.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Posicion>> distribuciones = new HashMap<>();
+        List<List<Posicion>> asientosPorFuncion = aceptadas.stream()
+                .map(c -> distribuciones.computeIfAbsent(c.sala().getCapacidad(), DistribucionAsientos::generar))
+                .toList();
+
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) conexion -> {
+            try (PreparedStatement ps = conexion.prepareStatement(SQL_INSERTAR_FUNCION, Statement.RETURN_GENERATED_KEYS)) {
+                for (int i = 0; i < aceptadas.size(); i++) {
+                    Candidata candidata = aceptadas.get(i);
+                    int totales = asientosPorFuncion.get(i).size();
+                    ps.setLong(1, candidata.sala().getId());
+                    ps.setLong(2, candidata.pelicula().getId());
+                    ps.setTimestamp(3, Timestamp.valueOf(candidata.fechaHora()));
+                    ps.setInt(4, totales);
+                    ps.setInt(5, totales);
+                    ps.setBigDecimal(6, candidata.precio());
+                    ps.setBoolean(7, asientosDispersos);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> generados = new ArrayList<>(aceptadas.size());
+                try (ResultSet claves = ps.getGeneratedKeys()) {
+                    while (claves.next()) {
+                        generados.add(claves.getLong(1));
+                    }
+                }
+                return generados;
+            }
+        });
+        if (ids == null || ids.size() != aceptadas.size()) {
+            throw new IllegalStateException("El driver JDBC no devolvió los IDs de las funciones insertadas");
+        }
+        if (asientosDispersos) {
+            return 0; // Los asientos se crean en BD al reservarse (ver MotorAsientos)
+        }
+
+        List<Object[]> asientos = new ArrayList<>();
+        for (int i = 0; i < aceptadas.size(); i++) {
+            double precio = aceptadas.get(i).precio().doubleValue() * TipoAsiento.NORMAL.getMultiplicadorPrecio();
+            for (Posicion posicion : asientosPorFuncion.get(i)) {
+                asientos.add(new Object[]{ids.get(i), posicion.fila(), posicion.numero(),
+                        TipoAsiento.NORMAL.name(), EstadoAsiento.DISPONIBLE.name(), precio});
+            }
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_ASIENTO, asientos, TAMANO_LOTE_ASIENTOS, (ps, fila) -> {
+            for (int c = 0; c < fila.length; c++) {
+                ps.setObject(c + 1, fila[c]);
+            }
+        });
+        return asientos.size();
+    }
+
+    private static String motivo(Ocupacion existente) {
+        if (existente.funcionId() == null) {
+            return String.format("Se solapa con otro horario del lote (%s - %s)", existente.inicio(), existente.fin());
+        }
+        return String.format("Se solapa con la función %d (%s - %s)",
+                existente.funcionId(), existente.inicio(), existente.fin());
+    }
+
+    private static Conflicto conflicto(Long salaId, Long peliculaId, LocalDateTime fechaHora, String motivo) {
+        return Conflicto.builder()
+                .salaId(salaId)
+                .peliculaId(peliculaId)
+                .fechaHora(fechaHora)
+                .motivo(motivo)
+                .build();
+    }
+}
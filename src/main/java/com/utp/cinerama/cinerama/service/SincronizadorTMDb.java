@@ -0,0 +1,441 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.dto.SyncResponseDTO;
+import com.utp.cinerama.cinerama.dto.TMDbChangesDTO;
+import com.utp.cinerama.cinerama.dto.TMDbMovieDTO;
+import com.utp.cinerama.cinerama.model.EstadoSincronizacion;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.repository.EstadoSincronizacionRepository;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * 🔄 Motor de sincronización masiva de películas desde TMDb
+ *
+ * Completa ({@link #sincronizar(int)}):
+ * 1. Descarga las páginas en paralelo (hilos virtuales, con un máximo de peticiones simultáneas)
+ * 2. Resuelve las películas existentes con un solo WHERE tmdb_id IN (...) por lote
+ * 3. Inserta y actualiza con JDBC batch, confirmando cada lote en su propia transacción corta
+ *
+ * Incremental ({@link #sincronizarCambios()}):
+ * 1. Lee los IDs modificados en TMDb desde la última marca de agua (/movie/changes)
+ * 2. Se queda solo con los que están en el catálogo local y descarga sus detalles en paralelo
+ * 3. Reescribe únicamente las filas cuyo hash de campos cambió
+ *
+ * Un lote que falla se revierte y cuenta como omitido; el resto de la sincronización continúa.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SincronizadorTMDb {
+
+    // TMDb no entrega más de 500 páginas por listado
+    public static final int MAX_PAGINAS = 500;
+
+    public static final String CLAVE_CAMBIOS = "tmdb-movie-changes";
+
+    // /movie/changes acepta rangos de hasta 14 días
+    private static final int VENTANA_CAMBIOS_DIAS = 14;
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO peliculas (tmdb_id, titulo, titulo_original, idioma_original, genero, sinopsis, resumen, " +
+            "duracion, popularidad, poster_url, backdrop_url, fecha_estreno, voto_promedio, total_votos, adult, " +
+            "activa, hash_tmdb, generos_mask) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Mismos campos que actualiza PeliculaServiceImpl (no pisa sinopsis editada ni estado)
+    // La duración solo viene en los detalles: si el listado no la trae se conserva la actual
+    private static final String SQL_ACTUALIZAR =
+            "UPDATE peliculas SET titulo = ?, titulo_original = ?, idioma_original = ?, genero = ?, resumen = ?, " +
+            "duracion = COALESCE(?, duracion), popularidad = ?, poster_url = ?, backdrop_url = ?, " +
+            "fecha_estreno = ?, voto_promedio = ?, total_votos = ?, adult = ?, hash_tmdb = ?, generos_mask = ? " +
+            "WHERE tmdb_id = ?";
+
+    // Relaciones pelicula_generos por tmdb_id (las filas nuevas aún no tienen ID en memoria)
+    private static final String SQL_BORRAR_GENEROS =
+            "DELETE FROM pelicula_generos WHERE pelicula_id = (SELECT id FROM peliculas WHERE tmdb_id = ?)";
+    private static final String SQL_INSERTAR_GENERO =
+            "INSERT INTO pelicula_generos (pelicula_id, genero_id) SELECT id, ? FROM peliculas WHERE tmdb_id = ?";
+
+    private final TMDbService tmdbService;
+    private final PeliculaRepository peliculaRepository;
+    private final EstadoSincronizacionRepository estadoSincronizacionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final IndiceBusquedaPeliculas indiceBusqueda;
+    private final CatalogoGeneros catalogoGeneros;
+
+    @Value("${cinerama.tmdb.sync.concurrencia:8}")
+    private int concurrencia;
+
+    @Value("${cinerama.tmdb.sync.tamano-lote:200}")
+    private int tamanoLote;
+
+    /**
+     * Sincroniza las primeras {@code paginas} páginas de "now playing"
+     */
+    public SyncResponseDTO sincronizar(int paginas) {
+        int totalPaginas = Math.max(1, Math.min(paginas, MAX_PAGINAS));
+        long inicio = System.currentTimeMillis();
+
+        // 1. Descarga concurrente (una película puede repetirse entre páginas)
+        Descarga<List<TMDbMovieDTO>> descarga = enParalelo(
+                IntStream.rangeClosed(1, totalPaginas).boxed().toList(),
+                tmdbService::fetchNowPlayingMovies);
+        List<TMDbMovieDTO> descargadas = descarga.resultados().stream().flatMap(List::stream).toList();
+
+        // 2-3. Upsert por lotes
+        Resultado resultado = guardar(descargadas.stream().map(this::convertir).toList());
+        resultado.paginasFallidas = descarga.fallidas() + descarga.omitidas();
+        if (resultado.paginasFallidas > 0) {
+            log.warn("⚠️ {} de {} páginas no se pudieron descargar: sus películas no se sincronizaron",
+                    resultado.paginasFallidas, totalPaginas);
+        }
+
+        String mensaje = String.format(
+            "%s: %d nuevas, %d actualizadas, %d sin cambios, %d omitidas de %d totales, %d páginas fallidas",
+            resultado.paginasFallidas == 0 ? "✅ Sincronización completada" : "⚠️ Sincronización incompleta",
+            resultado.nuevas, resultado.actualizadas, resultado.sinCambios, resultado.omitidas, descargadas.size(),
+            resultado.paginasFallidas
+        );
+        log.info("{} ({} páginas en {} ms)", mensaje, totalPaginas, System.currentTimeMillis() - inicio);
+
+        return resultado.aRespuesta(descargadas.size(), mensaje);
+    }
+
+    /**
+     * Sincroniza solo las películas del catálogo que cambiaron en TMDb desde la última ejecución
+     * La marca de agua avanza únicamente si no falló ninguna descarga (los fallos se reintentan en la siguiente).
+     * Un 4xx definitivo (p. ej. 404 de una película retirada) cuenta como omitida, no como fallo:
+     * reintentarlo no cambia la respuesta y dejaría la marca de agua detenida para siempre
+     */
+    public SyncResponseDTO sincronizarCambios() {
+        long inicio = System.currentTimeMillis();
+        LocalDate hoy = LocalDate.now(ZoneOffset.UTC); // TMDb fecha los cambios en UTC
+        LocalDate desde = estadoSincronizacionRepository.findById(CLAVE_CAMBIOS)
+                .map(EstadoSincronizacion::getUltimaFecha)
+                .orElse(hoy.minusDays(1));
+
+        // 1. IDs modificados en TMDb, por ventanas de 14 días
+        Set<Long> cambiados = new LinkedHashSet<>();
+        int fallidas = 0;
+        int paginasFallidas = 0;
+        for (LocalDate ventana = desde; !ventana.isAfter(hoy); ventana = ventana.plusDays(VENTANA_CAMBIOS_DIAS)) {
+            LocalDate inicioVentana = ventana;
+            LocalDate finVentana = ventana.plusDays(VENTANA_CAMBIOS_DIAS - 1).isAfter(hoy)
+                    ? hoy : ventana.plusDays(VENTANA_CAMBIOS_DIAS - 1);
+
+            TMDbChangesDTO primera = tmdbService.fetchMovieChanges(inicioVentana, finVentana, 1);
+            agregarCambios(cambiados, primera);
+
+            int paginas = Math.min(primera.getTotalPages() != null ? primera.getTotalPages() : 1, MAX_PAGINAS);
+            Descarga<TMDbChangesDTO> resto = enParalelo(
+                    IntStream.rangeClosed(2, paginas).boxed().toList(),
+                    pagina -> tmdbService.fetchMovieChanges(inicioVentana, finVentana, pagina));
+            resto.resultados().forEach(cambios -> agregarCambios(cambiados, cambios));
+            fallidas += resto.fallidas();
+            paginasFallidas += resto.fallidas() + resto.omitidas();
+        }
+
+        // 2. Solo interesan las que ya están en el catálogo local
+        List<Long> enCatalogo = new ArrayList<>();
+        List<Long> ids = new ArrayList<>(cambiados);
+        for (int i = 0; i < ids.size(); i += tamanoLote) {
+            for (Object[] fila : peliculaRepository.findHashesPorTmdbId(ids.subList(i, Math.min(i + tamanoLote, ids.size())))) {
+                enCatalogo.add((Long) fila[0]);
+            }
+        }
+
+        // 3. Detalles en paralelo y escritura solo de lo que cambió
+        Descarga<TMDbMovieDTO> detalles = enParalelo(enCatalogo, tmdbService::fetchMovieDetails);
+        fallidas += detalles.fallidas();
+        Resultado resultado = guardar(detalles.resultados().stream().map(this::convertirDetalles).toList());
+        resultado.omitidas += detalles.fallidas() + detalles.omitidas();
+        resultado.paginasFallidas = paginasFallidas;
+
+        if (fallidas == 0) {
+            estadoSincronizacionRepository.save(EstadoSincronizacion.builder()
+                    .clave(CLAVE_CAMBIOS)
+                    .ultimaFecha(hoy)
+                    .build());
+        } else {
+            log.warn("⚠️ {} descargas fallidas: la marca de agua se mantiene en {}", fallidas, desde);
+        }
+
+        String mensaje = String.format(
+            "✅ Sincronización incremental desde %s: %d cambios en TMDb, %d en catálogo, %d actualizadas, %d sin cambios, %d omitidas",
+            desde, cambiados.size(), enCatalogo.size(), resultado.actualizadas, resultado.sinCambios, resultado.omitidas
+        );
+        log.info("{} ({} ms)", mensaje, System.currentTimeMillis() - inicio);
+
+        return resultado.aRespuesta(enCatalogo.size(), mensaje);
+    }
+
+    /**
+     * Convierte un DTO de TMDb a una entidad Pelicula (nueva, activa)
+     */
+    public Pelicula convertir(TMDbMovieDTO tmdbMovie) {
+        return Pelicula.builder()
+                .tmdbId(tmdbMovie.getId())
+                .titulo(tmdbMovie.getTitle())
+                .tituloOriginal(tmdbMovie.getOriginalTitle())
+                .idiomaOriginal(tmdbMovie.getOriginalLanguage())
+                .genero(tmdbService.mapGenreIdsToNames(tmdbMovie.getGenreIds()))
+                .generosMask(catalogoGeneros.mascaraDeIds(tmdbMovie.getGenreIds()))
+                .sinopsis(tmdbMovie.getOverview())
+                .resumen(tmdbMovie.getOverview())
+                .popularidad(tmdbMovie.getPopularity())
+                .posterUrl(tmdbMovie.getFullPosterPath())
+                .backdropUrl(tmdbMovie.getFullBackdropPath())
+                .fechaEstreno(tmdbMovie.getReleaseDateAsLocalDate())
+                .votoPromedio(tmdbMovie.getVoteAverage())
+                .totalVotos(tmdbMovie.getVoteCount())
+                .adult(tmdbMovie.getAdult())
+                .activa(true)
+                .build();
+    }
+
+    /**
+     * Igual que {@link #convertir} pero con los datos de detalle (géneros completos y duración)
+     * Los géneros se nombran por ID igual que en el listado, para que el hash no dependa del modo
+     */
+    private Pelicula convertirDetalles(TMDbMovieDTO tmdbMovie) {
+        Pelicula pelicula = convertir(tmdbMovie);
+        if (tmdbMovie.getGenres() != null && !tmdbMovie.getGenres().isEmpty()) {
+            List<Integer> generoIds = tmdbMovie.getGenres().stream().map(TMDbMovieDTO.Genre::getId).toList();
+            pelicula.setGenero(tmdbService.mapGenreIdsToNames(generoIds));
+            pelicula.setGenerosMask(catalogoGeneros.mascaraDeIds(generoIds));
+        }
+        pelicula.setDuracion(tmdbMovie.getRuntime());
+        return pelicula;
+    }
+
+    /**
+     * SHA-256 (Base64) de los campos que traen tanto el listado como el detalle de TMDb
+     * La duración solo viene en el detalle: se compara aparte (ver {@link #guardarLote})
+     */
+    public static String calcularHash(Pelicula p) {
+        String contenido = String.join("\u001F",
+                Objects.toString(p.getTitulo()), Objects.toString(p.getTituloOriginal()),
+                Objects.toString(p.getIdiomaOriginal()), Objects.toString(p.getGenero()),
+                Objects.toString(p.getResumen()),
+                Objects.toString(p.getPopularidad()), Objects.toString(p.getPosterUrl()),
+                Objects.toString(p.getBackdropUrl()), Objects.toString(p.getFechaEstreno()),
+                Objects.toString(p.getVotoPromedio()), Objects.toString(p.getTotalVotos()),
+                Objects.toString(p.getAdult()));
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static void agregarCambios(Set<Long> cambiados, TMDbChangesDTO cambios) {
+        if (cambios.getResults() != null) {
+            cambios.getResults().forEach(c -> cambiados.add(c.getId()));
+        }
+    }
+
+    /**
+     * Valida, deduplica y guarda por lotes, cada uno en su propia transacción
+     */
+    private Resultado guardar(List<Pelicula> convertidas) {
+        Resultado resultado = new Resultado();
+
+        // Una película repetida se queda con su última versión
+        Map<Long, Pelicula> porTmdbId = new LinkedHashMap<>();
+        for (Pelicula pelicula : convertidas) {
+            if (pelicula.getTmdbId() == null || !validator.validate(pelicula).isEmpty()) {
+                resultado.omitidas++;
+                log.debug("⚠️ Película omitida por datos inválidos: {}", pelicula.getTitulo());
+                continue;
+            }
+            pelicula.setHashTmdb(calcularHash(pelicula));
+            porTmdbId.put(pelicula.getTmdbId(), pelicula);
+        }
+
+        List<Pelicula> peliculas = new ArrayList<>(porTmdbId.values());
+        for (int desde = 0; desde < peliculas.size(); desde += tamanoLote) {
+            List<Pelicula> lote = peliculas.subList(desde, Math.min(desde + tamanoLote, peliculas.size()));
+            try {
+                List<Long> escritas = new ArrayList<>();
+                int[] conteo = transactionTemplate.execute(estado -> guardarLote(lote, escritas));
+                resultado.nuevas += conteo[0];
+                resultado.actualizadas += conteo[1];
+                resultado.sinCambios += conteo[2];
+                // Las filas se escribieron por JDBC: se releen para reindexarlas con su ID y campos locales
+                if (!escritas.isEmpty()) {
+                    indiceBusqueda.indexar(peliculaRepository.findByTmdbIdIn(escritas));
+                }
+            } catch (Exception e) {
+                resultado.omitidas += lote.size();
+                log.warn("⚠️ Lote de {} películas revertido: {}", lote.size(), e.getMessage());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Inserta o actualiza un lote; devuelve {nuevas, actualizadas, sinCambios}
+     * y deja en {@code escritas} los TMDb IDs insertados o actualizados
+     */
+    private int[] guardarLote(List<Pelicula> lote, List<Long> escritas) {
+        Map<Long, String> existentes = new HashMap<>();
+        Map<Long, Integer> duraciones = new HashMap<>();
+        for (Object[] fila : peliculaRepository.findHashesPorTmdbId(lote.stream().map(Pelicula::getTmdbId).toList())) {
+            existentes.put((Long) fila[0], (String) fila[1]);
+            duraciones.put((Long) fila[0], (Integer) fila[2]);
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> generos = new ArrayList<>();
+        int sinCambios = 0;
+        for (Pelicula p : lote) {
+            Date estreno = p.getFechaEstreno() != null ? Date.valueOf(p.getFechaEstreno()) : null;
+            if (!existentes.containsKey(p.getTmdbId())) {
+                inserts.add(new Object[]{p.getTmdbId(), p.getTitulo(), p.getTituloOriginal(), p.getIdiomaOriginal(),
+                        p.getGenero(), p.getSinopsis(), p.getResumen(), p.getDuracion(), p.getPopularidad(),
+                        p.getPosterUrl(), p.getBackdropUrl(), estreno, p.getVotoPromedio(), p.getTotalVotos(),
+                        p.getAdult(), p.getActiva(), p.getHashTmdb(), p.getGenerosMask()});
+            } else if (p.getHashTmdb().equals(existentes.get(p.getTmdbId()))
+                    && (p.getDuracion() == null || p.getDuracion().equals(duraciones.get(p.getTmdbId())))) {
+                // Sin duración (listado) se conserva la guardada; con duración solo cuenta si cambió
+                sinCambios++;
+                continue;
+            } else {
+                updates.add(new Object[]{p.getTitulo(), p.getTituloOriginal(), p.getIdiomaOriginal(), p.getGenero(),
+                        p.getResumen(), p.getDuracion(), p.getPopularidad(), p.getPosterUrl(), p.getBackdropUrl(),
+                        estreno, p.getVotoPromedio(), p.getTotalVotos(), p.getAdult(), p.getHashTmdb(),
+                        p.getGenerosMask(), p.getTmdbId()});
+            }
+            for (Integer generoId : catalogoGeneros.idsDe(p.getGenerosMask())) {
+                generos.add(new Object[]{generoId, p.getTmdbId()});
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR, inserts);
+            inserts.forEach(fila -> escritas.add((Long) fila[0]));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, updates);
+            updates.forEach(fila -> escritas.add((Long) fila[fila.length - 1]));
+            jdbcTemplate.batchUpdate(SQL_BORRAR_GENEROS, updates.stream()
+                    .map(fila -> new Object[]{fila[fila.length - 1]})
+                    .toList());
+        }
+        if (!generos.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_INSERTAR_GENERO, generos);
+        }
+        return new int[]{inserts.size(), updates.size(), sinCambios};
+    }
+
+    /**
+     * Ejecuta una petición a TMDb por entrada en hilos virtuales, con como máximo
+     * {@code concurrencia} simultáneas. Las que fallan se registran y se cuentan
+     */
+    private <T, R> Descarga<R> enParalelo(List<T> entradas, Function<T, R> peticion) {
+        Semaphore permisos = new Semaphore(concurrencia);
+        List<Future<R>> futuros = new ArrayList<>(entradas.size());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T entrada : entradas) {
+                futuros.add(executor.submit(() -> {
+                    permisos.acquire();
+                    try {
+                        return peticion.apply(entrada);
+                    } finally {
+                        permisos.release();
+                    }
+                }));
+            }
+        }
+
+        List<R> resultados = new ArrayList<>(entradas.size());
+        int fallidas = 0;
+        int omitidas = 0;
+        for (int i = 0; i < futuros.size(); i++) {
+            try {
+                R resultado = futuros.get(i).get();
+                if (resultado != null) {
+                    resultados.add(resultado);
+                }
+            } catch (Exception e) {
+                if (esErrorDefinitivo(e)) {
+                    omitidas++;
+                    log.debug("⚠️ Descarga de {} omitida: {}", entradas.get(i), e.getMessage());
+                } else {
+                    fallidas++;
+                    log.warn("⚠️ Falló la descarga de {}: {}", entradas.get(i), e.getMessage());
+                }
+            }
+        }
+        return new Descarga<>(resultados, fallidas, omitidas);
+    }
+
+    /**
+     * 4xx de TMDb (salvo 429): la petición no va a prosperar al reintentarla
+     */
+    private static boolean esErrorDefinitivo(Throwable e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof HttpClientErrorException error) {
+                return error.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS;
+            }
+        }
+        return false;
+    }
+
+    private record Descarga<R>(List<R> resultados, int fallidas, int omitidas) {}
+
+    private static final class Resultado {
+        int nuevas;
+        int actualizadas;
+        int sinCambios;
+        int omitidas;
+        int paginasFallidas;
+
+        SyncResponseDTO aRespuesta(int total, String mensaje) {
+            return SyncResponseDTO.builder()
+                    .totalPeliculasAPI(total)
+                    .peliculasNuevas(nuevas)
+                    .peliculasActualizadas(actualizadas)
+                    .peliculasSinCambios(sinCambios)
+                    .peliculasOmitidas(omitidas)
+                    .paginasFallidas(paginasFallidas)
+                    .mensaje(mensaje)
+                    .build();
+        }
+    }
+}
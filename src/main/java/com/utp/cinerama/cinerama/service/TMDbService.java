@@ -1,8 +1,11 @@
 package com.utp.cinerama.cinerama.service;
 
 import com.utp.cinerama.cinerama.config.TMDbConfig;
+import com.utp.cinerama.cinerama.dto.TMDbChangesDTO;
+import com.utp.cinerama.cinerama.dto.TMDbGenresDTO;
 import com.utp.cinerama.cinerama.dto.TMDbMovieDTO;
 import com.utp.cinerama.cinerama.dto.TMDbResponseDTO;
+import com.utp.cinerama.cinerama.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
@@ -10,7 +13,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Servicio para consumir la API de TMDb con cache
@@ -23,19 +28,53 @@ public class TMDbService {
     private final RestTemplate restTemplate;
     private final TMDbConfig tmdbConfig;
 
+    // Géneros conocidos de TMDb (semilla del diccionario de géneros, ver CatalogoGeneros)
+    public static final Map<Integer, String> GENEROS = Map.ofEntries(
+            Map.entry(28, "Acción"),
+            Map.entry(12, "Aventura"),
+            Map.entry(16, "Animación"),
+            Map.entry(35, "Comedia"),
+            Map.entry(80, "Crimen"),
+            Map.entry(99, "Documental"),
+            Map.entry(18, "Drama"),
+            Map.entry(10751, "Familia"),
+            Map.entry(14, "Fantasía"),
+            Map.entry(36, "Historia"),
+            Map.entry(27, "Terror"),
+            Map.entry(10402, "Música"),
+            Map.entry(9648, "Misterio"),
+            Map.entry(10749, "Romance"),
+            Map.entry(878, "Ciencia Ficción"),
+            Map.entry(10770, "Película de TV"),
+            Map.entry(53, "Suspenso"),
+            Map.entry(10752, "Bélica"),
+            Map.entry(37, "Western")
+    );
+
+    // Llamadas idénticas concurrentes (misma URL) comparten una sola petición HTTP a TMDb
+    private final SingleFlight<String, Object> llamadasEnVuelo = new SingleFlight<>();
+
     /**
      * Obtiene peliculas en cartelera (now_playing)
-     * Cache de 10 minutos para reducir llamadas a API externa
+     * Cache con TTL y recarga en segundo plano (ver CacheConfig)
      * @param page Numero de pagina (opcional, default: 1)
      * @return Lista de peliculas desde TMDb
      */
     @Cacheable(value = "tmdb-now-playing", key = "#page", unless = "#result == null || #result.isEmpty()")
     public List<TMDbMovieDTO> getNowPlayingMovies(Integer page) {
+        return fetchNowPlayingMovies(page);
+    }
+
+    /**
+     * Consulta directa (sin caché) de películas en cartelera
+     * Usada por getNowPlayingMovies y por la recarga en segundo plano de la caché
+     */
+    public List<TMDbMovieDTO> fetchNowPlayingMovies(Integer page) {
         try {
             String url = buildUrl(tmdbConfig.getNowPlayingUrl(), page);
             log.info("Consultando TMDb API: {}", url);
             
-            TMDbResponseDTO response = restTemplate.getForObject(url, TMDbResponseDTO.class);
+            TMDbResponseDTO response = consultar(url, TMDbResponseDTO.class);
             
             if (response != null && response.getResults() != null) {
                 log.info("Se obtuvieron {} peliculas de TMDb (pagina {})", 
@@ -54,17 +93,25 @@ public class TMDbService {
 
     /**
      * Obtiene peliculas populares
-     * Cache de 10 minutos
+     * Cache con TTL y recarga en segundo plano (ver CacheConfig)
      * @param page Numero de pagina
      * @return Lista de peliculas populares
      */
     @Cacheable(value = "tmdb-popular", key = "#page", unless = "#result == null || #result.isEmpty()")
     public List<TMDbMovieDTO> getPopularMovies(Integer page) {
+        return fetchPopularMovies(page);
+    }
+
+    /**
+     * Consulta directa (sin caché) de películas populares
+     * Usada por getPopularMovies y por la recarga en segundo plano de la caché
+     */
+    public List<TMDbMovieDTO> fetchPopularMovies(Integer page) {
         try {
             String url = buildUrl(tmdbConfig.getPopularUrl(), page);
             log.info("Consultando peliculas populares en TMDb: {}", url);
             
-            TMDbResponseDTO response = restTemplate.getForObject(url, TMDbResponseDTO.class);
+            TMDbResponseDTO response = consultar(url, TMDbResponseDTO.class);
             
             if (response != null && response.getResults() != null) {
                 log.info("Se obtuvieron {} peliculas populares de TMDb", response.getResults().size());
@@ -81,17 +128,25 @@ public class TMDbService {
 
     /**
      * Obtiene peliculas proximamente (upcoming)
-     * Cache de 10 minutos
+     * Cache con TTL y recarga en segundo plano (ver CacheConfig)
      * @param page Numero de pagina
      * @return Lista de peliculas que se estrenarán pronto
      */
     @Cacheable(value = "tmdb-upcoming", key = "#page", unless = "#result == null || #result.isEmpty()")
     public List<TMDbMovieDTO> getUpcomingMovies(Integer page) {
+        return fetchUpcomingMovies(page);
+    }
+
+    /**
+     * Consulta directa (sin caché) de películas próximamente
+     * Usada por getUpcomingMovies y por la recarga en segundo plano de la caché
+     */
+    public List<TMDbMovieDTO> fetchUpcomingMovies(Integer page) {
         try {
             String url = buildUrl(tmdbConfig.getUpcomingUrl(), page);
             log.info("Consultando peliculas proximamente en TMDb: {}", url);
             
-            TMDbResponseDTO response = restTemplate.getForObject(url, TMDbResponseDTO.class);
+            TMDbResponseDTO response = consultar(url, TMDbResponseDTO.class);
             
             if (response != null && response.getResults() != null) {
                 log.info("Se obtuvieron {} peliculas proximamente de TMDb", response.getResults().size());
@@ -109,11 +164,20 @@ public class TMDbService {
     /**
      * Obtiene detalles completos de una película específica por ID
      * Usado cuando el admin selecciona una película para agregar a cartelera
+     * Cache con TTL y recarga en segundo plano (ver CacheConfig)
      * 
      * @param tmdbId ID de la película en TMDb
      * @return Detalles completos de la película (incluye runtime y genres completos)
      */
+    @Cacheable(value = "tmdb-movie-details", key = "#tmdbId")
     public TMDbMovieDTO getMovieDetails(Long tmdbId) {
+        return fetchMovieDetails(tmdbId);
+    }
+
+    /**
+     * Consulta directa (sin caché) de los detalles de una película
+     */
+    public TMDbMovieDTO fetchMovieDetails(Long tmdbId) {
         try {
             String url = UriComponentsBuilder
                     .fromUriString(tmdbConfig.getMovieDetailsUrl(tmdbId))
@@ -123,7 +187,7 @@ public class TMDbService {
             
             log.info("Consultando detalles de película TMDb ID {}: {}", tmdbId, url);
             
-            TMDbMovieDTO movie = restTemplate.getForObject(url, TMDbMovieDTO.class);
+            TMDbMovieDTO movie = consultar(url, TMDbMovieDTO.class);
             
             if (movie != null) {
                 log.info("Detalles obtenidos: {} - Duración: {} min", 
@@ -139,6 +203,45 @@ public class TMDbService {
         }
     }
 
+    /**
+     * Lista oficial de géneros de películas (/genre/movie/list) en el idioma configurado
+     */
+    public List<TMDbMovieDTO.Genre> fetchGenres() {
+        String url = UriComponentsBuilder
+                .fromUriString(tmdbConfig.getGenresUrl())
+                .queryParam("api_key", tmdbConfig.getApiKey())
+                .queryParam("language", tmdbConfig.getLanguage())
+                .toUriString();
+
+        TMDbGenresDTO respuesta = consultar(url, TMDbGenresDTO.class);
+        return respuesta != null && respuesta.getGenres() != null ? respuesta.getGenres() : List.of();
+    }
+
+    /**
+     * Consulta una página del feed de cambios (/movie/changes) entre dos fechas (máximo 14 días)
+     * Sin caché: lo usa la sincronización incremental
+     */
+    public TMDbChangesDTO fetchMovieChanges(LocalDate desde, LocalDate hasta, Integer page) {
+        String url = UriComponentsBuilder
+                .fromUriString(tmdbConfig.getMovieChangesUrl())
+                .queryParam("api_key", tmdbConfig.getApiKey())
+                .queryParam("start_date", desde)
+                .queryParam("end_date", hasta)
+                .queryParam("page", page)
+                .toUriString();
+
+        log.debug("Consultando cambios de TMDb ({} a {}, página {})", desde, hasta, page);
+        TMDbChangesDTO cambios = consultar(url, TMDbChangesDTO.class);
+        return cambios != null ? cambios : new TMDbChangesDTO(page, List.of(), 0, 0);
+    }
+
+    /**
+     * GET a TMDb con single-flight: si ya hay una petición en vuelo para la misma URL, se espera su resultado
+     */
+    private <T> T consultar(String url, Class<T> tipo) {
+        return tipo.cast(llamadasEnVuelo.ejecutar(url, () -> restTemplate.getForObject(url, tipo)));
+    }
+
     /**
      * Construye la URL con parámetros de consulta
      */
@@ -194,27 +297,6 @@ public class TMDbService {
      * Obtiene el nombre del género por ID
      */
     private String getGenreName(Integer id) {
-        return switch (id) {
-            case 28 -> "Acción";
-            case 12 -> "Aventura";
-            case 16 -> "Animación";
-            case 35 -> "Comedia";
-            case 80 -> "Crimen";
-            case 99 -> "Documental";
-            case 18 -> "Drama";
-            case 10751 -> "Familia";
-            case 14 -> "Fantasía";
-            case 36 -> "Historia";
-            case 27 -> "Terror";
-            case 10402 -> "Música";
-            case 9648 -> "Misterio";
-            case 10749 -> "Romance";
-            case 878 -> "Ciencia Ficción";
-            case 10770 -> "Película de TV";
-            case 53 -> "Suspenso";
-            case 10752 -> "Bélica";
-            case 37 -> "Western";
-            default -> "";
-        };
+        return id != null ? GENEROS.getOrDefault(id, "") : "";
     }
 }
@@ -0,0 +1,166 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.dto.AsientoEstadoDTO;
+import com.utp.cinerama.cinerama.event.AsientoCambiadoEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 📡 Difusión en vivo (SSE) del mapa de asientos por función
+ *
+ * Cada suscriptor recibe un snapshot inicial y luego solo deltas (id + estado)
+ * a partir de los {@link AsientoCambiadoEvent} del motor de asientos.
+ *
+ * Cada suscriptor tiene su propia cola y un hilo virtual que la drena:
+ * un cliente lento no frena a los demás y miles de conexiones ociosas no cuestan hilos del sistema.
+ * Los deltas se resuelven contra el estado actual al enviarse, así nunca se envía un estado viejo.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransmisorAsientos {
+
+    // Si un cliente acumula más mensajes que esto, se corta; EventSource reconecta y recibe un snapshot nuevo
+    private static final int CAPACIDAD_COLA = 512;
+    private static final Object SNAPSHOT = new Object();
+    private static final Object LATIDO = new Object();
+
+    private final MotorAsientos motorAsientos;
+
+    @Value("${cinerama.asientos.sse-timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Map<Long, Set<Suscriptor>> suscriptores = new ConcurrentHashMap<>();
+
+    /**
+     * Abre un stream para la función: snapshot inicial + deltas
+     */
+    public SseEmitter suscribir(Long funcionId) {
+        // Valida la función (lanza si no existe) antes de registrar al suscriptor
+        motorAsientos.mapa(funcionId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Suscriptor suscriptor = new Suscriptor(funcionId, emitter);
+
+        emitter.onCompletion(() -> retirar(suscriptor));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> retirar(suscriptor));
+
+        // Registrar antes del snapshot: ningún cambio posterior se pierde
+        suscriptores.computeIfAbsent(funcionId, id -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        suscriptor.encolar(SNAPSHOT);
+        suscriptor.hilo = Thread.ofVirtual().name("sse-asientos-" + funcionId).start(suscriptor);
+
+        log.debug("Nuevo suscriptor SSE para función {}", funcionId);
+        return emitter;
+    }
+
+    @EventListener
+    public void alCambiarAsiento(AsientoCambiadoEvent evento) {
+        Set<Suscriptor> destinos = suscriptores.get(evento.funcionId());
+        if (destinos == null) {
+            return;
+        }
+        for (Suscriptor suscriptor : destinos) {
+            suscriptor.encolar(evento.asientoId());
+        }
+    }
+
+    /**
+     * Comentario SSE periódico para detectar conexiones muertas y atravesar proxies
+     */
+    @Scheduled(fixedRate = 25000)
+    public void enviarLatidos() {
+        suscriptores.values().forEach(destinos -> destinos.forEach(s -> s.encolar(LATIDO)));
+    }
+
+    public int totalSuscriptores() {
+        return suscriptores.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void alDetener() {
+        suscriptores.values().forEach(destinos -> destinos.forEach(s -> s.emitter.complete()));
+    }
+
+    private void retirar(Suscriptor suscriptor) {
+        Set<Suscriptor> destinos = suscriptores.get(suscriptor.funcionId);
+        if (destinos != null) {
+            destinos.remove(suscriptor);
+            if (destinos.isEmpty()) {
+                suscriptores.remove(suscriptor.funcionId, destinos);
+            }
+        }
+        Thread hilo = suscriptor.hilo;
+        if (hilo != null && hilo != Thread.currentThread()) {
+            hilo.interrupt();
+        }
+    }
+
+    private final class Suscriptor implements Runnable {
+
+        private final Long funcionId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Object> cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        private volatile Thread hilo;
+
+        Suscriptor(Long funcionId, SseEmitter emitter) {
+            this.funcionId = funcionId;
+            this.emitter = emitter;
+        }
+
+        void encolar(Object mensaje) {
+            if (!cola.offer(mensaje)) {
+                log.debug("Suscriptor SSE lento para función {}, cerrando stream", funcionId);
+                emitter.complete();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    enviar(cola.take());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Cliente desconectado o función eliminada
+                log.debug("Stream SSE de función {} cerrado: {}", funcionId, e.getMessage());
+                retirar(this);
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void enviar(Object mensaje) throws Exception {
+            if (mensaje == SNAPSHOT) {
+                emitter.send(SseEmitter.event()
+                        .name("snapshot")
+                        .data(motorAsientos.obtenerMapa(funcionId).stream()
+                                .map(AsientoEstadoDTO::completo)
+                                .toList()));
+            } else if (mensaje == LATIDO) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } else {
+                var asiento = motorAsientos.obtenerAsiento(funcionId, (Long) mensaje);
+                if (asiento.isPresent()) {
+                    emitter.send(SseEmitter.event()
+                            .name("asiento")
+                            .data(AsientoEstadoDTO.delta(asiento.get())));
+                }
+            }
+        }
+    }
+}
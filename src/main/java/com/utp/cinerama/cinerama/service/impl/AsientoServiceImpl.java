@@ -1,5 +1,6 @@
 package com.utp.cinerama.cinerama.service.impl;
 
+import com.utp.cinerama.cinerama.exception.AsientoNoDisponibleException;
 import com.utp.cinerama.cinerama.model.Asiento;
 import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
 import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
@@ -8,16 +9,19 @@ import com.utp.cinerama.cinerama.model.Sala;
 import com.utp.cinerama.cinerama.repository.AsientoRepository;
 import com.utp.cinerama.cinerama.repository.FuncionRepository;
 import com.utp.cinerama.cinerama.service.AsientoService;
+import com.utp.cinerama.cinerama.service.MotorAsientos;
 
+import com.utp.cinerama.cinerama.util.DistribucionAsientos;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,80 +30,101 @@ public class AsientoServiceImpl implements AsientoService {
 
     private final AsientoRepository asientoRepository;
     private final FuncionRepository funcionRepository;
+    private final MotorAsientos motorAsientos;
+
+    // true = las funciones nuevas no generan filas de asientos (se crean al reservar cada asiento)
+    @Value("${cinerama.asientos.dispersos:false}")
+    private boolean asientosDispersos;
+
+    // true = las reservas se deciden solo con UPDATE condicional (BD como árbitro): la individual se escribe
+    //        al instante y la de lote omite el SELECT ... FOR UPDATE previo
+    @Value("${cinerama.asientos.reserva-directa:false}")
+    private boolean reservaDirecta;
 
     @Override
-    @Transactional(readOnly = true)
     public List<Asiento> obtenerMapaAsientos(Long funcionId) {
-        log.info("Obteniendo mapa de asientos para función: {}", funcionId);
-        return asientoRepository.findByFuncionIdOrderByFilaAscNumeroAsc(funcionId);
+        log.debug("Obteniendo mapa de asientos para función: {}", funcionId);
+        return motorAsientos.obtenerMapa(funcionId);
+    }
+
+    @Override
+    public Long obtenerFuncionDeAsiento(Long asientoId) {
+        return motorAsientos.funcionDeAsiento(asientoId).getId();
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
     public Asiento reservarAsiento(Long asientoId) {
         log.info("Reservando asiento: {}", asientoId);
 
-        // 🔒 Obtener asiento con bloqueo pesimista
-        Asiento asiento = asientoRepository.findByIdWithLock(asientoId)
-                .orElseThrow(() -> new IllegalArgumentException("Asiento no encontrado: " + asientoId));
+        // Validaciones adicionales (función en memoria, sin ir a BD)
+        validarPreReserva(motorAsientos.funcionDeAsiento(asientoId), motorAsientos.obtenerAsiento(asientoId));
 
-        // Validaciones adicionales
-        validarPreReserva(asiento);
+        // 🔒 CAS en memoria: DISPONIBLE → RESERVADO (persistencia write-behind,
+        //    o UPDATE condicional inmediato decidido por filas afectadas)
+        return reservaDirecta
+                ? motorAsientos.reservarDirecto(asientoId, null) // null = sin cliente específico por ahora
+                : motorAsientos.reservar(asientoId, null);
+    }
+
+    @Override
+    @Transactional
+    public List<Asiento> reservarAsientos(Long funcionId, List<Long> asientoIds) {
+        log.info("Reservando {} asientos para función: {}", asientoIds.size(), funcionId);
 
-        // ✅ Verificar que esté disponible
-        if (!asiento.estaDisponible()) {
-            throw new IllegalStateException("El asiento " + asiento.getCodigoAsiento() + 
-                    " no está disponible. Estado actual: " + asiento.getEstado());
+        // Validaciones en memoria
+        Funcion funcion = motorAsientos.mapa(funcionId).getFuncion();
+        for (Long asientoId : asientoIds) {
+            validarPreReserva(funcion, motorAsientos.obtenerAsiento(asientoId));
         }
 
-        // 🕐 Usar método helper para reservar temporalmente (5 minutos)
-        asiento.reservarTemporal(null); // null = sin cliente específico por ahora
+        // 🔒 CAS en memoria en orden ascendente de ID (todo o nada)
+        List<Asiento> reservados = motorAsientos.reservarLote(funcionId, asientoIds, null);
+        List<Long> ids = motorAsientos.idsPersistidos(funcionId, reservados);
+
+        // 💾 Por defecto, un único SELECT ... FOR UPDATE (orden ascendente de ID) antes del UPDATE;
+        //    en reserva directa no hay bloqueo previo y las filas afectadas deciden
+        if (!reservaDirecta) {
+            for (Asiento asiento : asientoRepository.findAllByIdInWithLock(ids)) {
+                if (asiento.getEstado() == EstadoAsiento.OCUPADO) {
+                    throw new AsientoNoDisponibleException("El asiento " + asiento.getCodigoAsiento() +
+                            " no está disponible. Estado actual: " + asiento.getEstado());
+                }
+            }
+        }
 
-        return asientoRepository.save(asiento);
+        Asiento primero = reservados.get(0);
+        int actualizados = asientoRepository.reservarEnLote(ids, primero.getReservadoPor(),
+                primero.getFechaReserva(), primero.getFechaExpiracionReserva());
+        if (actualizados != ids.size()) {
+            throw new AsientoNoDisponibleException("Alguno de los asientos seleccionados ya fue vendido");
+        }
+
+        return reservados;
     }
 
     @Override
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
     public Asiento confirmarReserva(Long asientoId) {
         log.info("Confirmando reserva de asiento: {}", asientoId);
 
-        Asiento asiento = asientoRepository.findByIdWithLock(asientoId)
-                .orElseThrow(() -> new IllegalArgumentException("Asiento no encontrado: " + asientoId));
+        // ✅ CAS en memoria: RESERVADO → OCUPADO (se revierte si la transacción falla)
+        Asiento confirmado = motorAsientos.confirmar(asientoId);
 
-        // ✅ Solo se puede confirmar si está RESERVADO
-        if (asiento.getEstado() != EstadoAsiento.RESERVADO) {
-            throw new IllegalStateException("El asiento no está reservado. Estado actual: " + asiento.getEstado());
+        // 💾 UPDATE condicional dentro de la transacción de compra (mismo criterio que el
+        //    write-behind: nunca pisa un OCUPADO, sin leer la entidad ni competir por @Version)
+        int actualizados = asientoRepository.ocuparEnLote(List.of(motorAsientos.idPersistido(asientoId)));
+        if (actualizados != 1) {
+            throw new AsientoNoDisponibleException("El asiento " + confirmado.getCodigoAsiento() + " ya fue vendido");
         }
-
-        // 🕐 Verificar que no haya expirado usando el método helper
-        if (asiento.reservaExpirada()) {
-            // Expiró, liberar automáticamente
-            asiento.liberar();
-            asientoRepository.save(asiento);
-            throw new IllegalStateException("La reserva expiró. Por favor, vuelva a seleccionar el asiento.");
-        }
-
-        // ✅ Confirmar reserva → OCUPADO usando método helper
-        asiento.confirmar();
-        return asientoRepository.save(asiento);
+        return confirmado;
     }
 
     @Override
-    @Transactional
     public Asiento liberarAsiento(Long asientoId) {
         log.info("Liberando asiento: {}", asientoId);
 
-        Asiento asiento = asientoRepository.findById(asientoId)
-                .orElseThrow(() -> new IllegalArgumentException("Asiento no encontrado: " + asientoId));
-
-        // 🔓 Solo se pueden liberar asientos RESERVADOS
-        if (asiento.getEstado() != EstadoAsiento.RESERVADO) {
-            throw new IllegalStateException("Solo se pueden liberar asientos reservados");
-        }
-
-        // Usar método helper para liberar
-        asiento.liberar();
-        return asientoRepository.save(asiento);
+        // 🔓 Solo se pueden liberar asientos RESERVADOS (persistencia write-behind)
+        return motorAsientos.liberar(asientoId);
     }
 
     @Override
@@ -107,6 +132,14 @@ public class AsientoServiceImpl implements AsientoService {
     public List<Asiento> generarAsientosParaFuncion(Long funcionId) {
         log.info("Generando asientos para función: {}", funcionId);
 
+        Funcion funcion = funcionRepository.findById(funcionId)
+                .orElseThrow(() -> new IllegalArgumentException("Función no encontrada: " + funcionId));
+
+        // Función dispersa: sus asientos salen de la distribución de la sala
+        if (Boolean.TRUE.equals(funcion.getAsientosDispersos())) {
+            return motorAsientos.obtenerMapa(funcionId);
+        }
+
         // Verificar si ya existen asientos para esta función
         List<Asiento> asientosExistentes = asientoRepository.findByFuncionIdOrderByFilaAscNumeroAsc(funcionId);
         if (!asientosExistentes.isEmpty()) {
@@ -114,81 +147,81 @@ public class AsientoServiceImpl implements AsientoService {
             return asientosExistentes;
         }
 
-        Funcion funcion = funcionRepository.findById(funcionId)
-                .orElseThrow(() -> new IllegalArgumentException("Función no encontrada: " + funcionId));
-
         Sala sala = funcion.getSala();
         int capacidad = sala.getCapacidad();
 
-        // 🎭 Distribución tipo Cineplanet (como la imagen)
-        // Layout: 10 asientos lado izquierdo | pasillo | 11 asientos lado derecho
-        // Filas: A-J (10 filas máximo)
-        // Numeración: 21-12 (izquierda) | 00 (pasillo) | 11-01 (derecha)
-        
-        int asientosPorFila = 21; // Máximo por fila (sin contar pasillo)
-        int totalFilas = Math.min(10, (int) Math.ceil((double) capacidad / asientosPorFila));
-        
+        if (asientosDispersos) {
+            // 🪶 Modo disperso: ninguna fila en BD hasta que se reserve cada asiento
+            funcion.setAsientosDispersos(true);
+            funcionRepository.save(funcion);
+            log.info("✅ Función {} en modo disperso ({} asientos virtuales en sala {})",
+                     funcionId, DistribucionAsientos.generar(capacidad).size(), sala.getNombre());
+            return motorAsientos.registrarFuncion(funcion, List.of());
+        }
+
+        // 🎭 Distribución tipo Cineplanet (ver DistribucionAsientos)
+        Double precio = funcion.getPrecioEntrada().doubleValue();
         List<Asiento> asientos = new ArrayList<>();
-        int asientosCreados = 0;
-
-        for (int f = 0; f < totalFilas && asientosCreados < capacidad; f++) {
-            String fila = String.valueOf((char) ('A' + f)); // A, B, C, ... J
-
-            // Crear asientos de derecha a izquierda (como en la imagen: 21, 20, 19... 01)
-            for (int n = asientosPorFila; n >= 1 && asientosCreados < capacidad; n--) {
-                TipoAsiento tipo = TipoAsiento.NORMAL;
-                Double precio = funcion.getPrecioEntrada().doubleValue();
-
-                Asiento asiento = Asiento.builder()
-                        .funcion(funcion)
-                        .fila(fila)
-                        .numero(n)
-                        .tipo(tipo)
-                        .estado(EstadoAsiento.DISPONIBLE)
-                        .precio(precio)
-                        .build();
-
-                asientos.add(asiento);
-                asientosCreados++;
-            }
+        for (DistribucionAsientos.Posicion posicion : DistribucionAsientos.generar(capacidad)) {
+            Asiento asiento = Asiento.builder()
+                    .funcion(funcion)
+                    .fila(posicion.fila())
+                    .numero(posicion.numero())
+                    .tipo(TipoAsiento.NORMAL)
+                    .estado(EstadoAsiento.DISPONIBLE)
+                    .precio(precio)
+                    .build();
+
+            asientos.add(asiento);
         }
 
         log.info("✅ Generados {} asientos para función {} en sala {}", 
                  asientos.size(), funcionId, sala.getNombre());
         
-        return asientoRepository.saveAll(asientos);
+        List<Asiento> guardados = asientoRepository.saveAll(asientos);
+        motorAsientos.registrarFuncion(funcion, guardados);
+        return guardados;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean verificarDisponibilidad(Long funcionId, String fila, Integer numero) {
-        return asientoRepository.existsByFuncionIdAndFilaAndNumero(funcionId, fila, numero);
+        return motorAsientos.estaDisponible(funcionId, fila, numero);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<Asiento> obtenerAsientosPorEstado(Long funcionId, EstadoAsiento estado) {
-        return asientoRepository.findByFuncionIdAndEstado(funcionId, estado);
+        return motorAsientos.obtenerMapa(funcionId).stream()
+                .filter(a -> a.getEstado() == estado)
+                .toList();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<Asiento> obtenerAsientosPorTipo(Long funcionId, TipoAsiento tipo) {
-        return asientoRepository.findByFuncionIdAndTipo(funcionId, tipo);
+        return motorAsientos.obtenerMapa(funcionId).stream()
+                .filter(a -> a.getTipo() == tipo)
+                .toList();
     }
 
     @Override
     @Transactional(readOnly = true)
     public EstatisticasAsientos obtenerEstadisticas(Long funcionId) {
-        long total = asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.DISPONIBLE)
-                + asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.RESERVADO)
-                + asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.OCUPADO)
-                + asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.BLOQUEADO);
+        // 📊 Funciones en memoria: contadores incrementales del motor (sin consultas)
+        // Resto (p. ej. funciones pasadas): un único GROUP BY estado
+        long[] conteo;
+        if (motorAsientos.estaCargada(funcionId) || esDispersa(funcionId)) {
+            conteo = motorAsientos.contarPorEstado(funcionId);
+        } else {
+            conteo = new long[EstadoAsiento.values().length];
+            for (Object[] fila : asientoRepository.contarPorEstado(funcionId)) {
+                conteo[((EstadoAsiento) fila[0]).ordinal()] = (Long) fila[1];
+            }
+        }
 
-        long disponibles = asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.DISPONIBLE);
-        long reservados = asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.RESERVADO);
-        long ocupados = asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.OCUPADO);
-        long bloqueados = asientoRepository.countByFuncionIdAndEstado(funcionId, EstadoAsiento.BLOQUEADO);
+        long disponibles = conteo[EstadoAsiento.DISPONIBLE.ordinal()];
+        long reservados = conteo[EstadoAsiento.RESERVADO.ordinal()];
+        long ocupados = conteo[EstadoAsiento.OCUPADO.ordinal()];
+        long bloqueados = conteo[EstadoAsiento.BLOQUEADO.ordinal()];
+        long total = disponibles + reservados + ocupados + bloqueados;
 
         double porcentajeOcupacion = total > 0 ? ((double) ocupados / total) * 100 : 0;
 
@@ -198,8 +231,15 @@ public class AsientoServiceImpl implements AsientoService {
     @Override
     @Transactional
     public int liberarAsientosExpirados() {
+        // 1. Funciones residentes en memoria (se persisten por write-behind)
+        int liberados = motorAsientos.liberarExpirados();
+
+        // 2. Funciones no cargadas en memoria (las residentes ya las cubre el paso 1: no se cuentan dos veces)
         LocalDateTime ahora = LocalDateTime.now();
-        int liberados = asientoRepository.liberarAsientosExpirados(ahora);
+        Set<Long> cargadas = motorAsientos.funcionesCargadas();
+        liberados += cargadas.isEmpty()
+                ? asientoRepository.liberarAsientosExpirados(ahora)
+                : asientoRepository.liberarAsientosExpiradosExcepto(ahora, cargadas);
         
         if (liberados > 0) {
             log.info("✅ Liberados {} asientos expirados", liberados);
@@ -213,9 +253,8 @@ public class AsientoServiceImpl implements AsientoService {
     /**
      * Validaciones de pre-reserva para garantizar integridad
      */
-    private void validarPreReserva(Asiento asiento) {
+    private void validarPreReserva(Funcion funcion, Asiento asiento) {
         // 1. Verificar que la función aún no haya iniciado
-        Funcion funcion = asiento.getFuncion();
         LocalDateTime ahora = LocalDateTime.now();
         
         if (funcion.getFechaHora().isBefore(ahora)) {
@@ -226,8 +265,8 @@ public class AsientoServiceImpl implements AsientoService {
             );
         }
         
-        // 2. Verificar que la función tenga asientos disponibles
-        if (funcion.getAsientosDisponibles() <= 0) {
+        // 2. Verificar que la función tenga asientos disponibles (contador vivo del motor)
+        if (motorAsientos.asientosDisponibles(funcion.getId()) <= 0) {
             throw new IllegalStateException(
                 String.format("No hay asientos disponibles para la función de %s a las %s",
                               funcion.getPelicula().getTitulo(),
@@ -244,6 +283,15 @@ public class AsientoServiceImpl implements AsientoService {
         }
     }
 
+    /**
+     * En funciones dispersas la BD no tiene todos los asientos: el conteo sale del motor
+     */
+    private boolean esDispersa(Long funcionId) {
+        return funcionRepository.findById(funcionId)
+                .map(f -> Boolean.TRUE.equals(f.getAsientosDispersos()))
+                .orElse(false);
+    }
+
     /**
      * Calcula el precio según el tipo de asiento
      */
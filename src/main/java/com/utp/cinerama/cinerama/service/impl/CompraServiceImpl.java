@@ -0,0 +1,276 @@
+package com.utp.cinerama.cinerama.service.impl;
+
+import com.utp.cinerama.cinerama.dto.CalcularTotalDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmacionCompraDTO;
+import com.utp.cinerama.cinerama.dto.ConfirmarCompraDTO;
+import com.utp.cinerama.cinerama.dto.TotalCompraDTO;
+import com.utp.cinerama.cinerama.exception.AsientoNoDisponibleException;
+import com.utp.cinerama.cinerama.exception.ResourceNotFoundException;
+import com.utp.cinerama.cinerama.model.*;
+import com.utp.cinerama.cinerama.repository.AsientoRepository;
+import com.utp.cinerama.cinerama.repository.ClienteRepository;
+import com.utp.cinerama.cinerama.repository.PagoRepository;
+import com.utp.cinerama.cinerama.repository.ProductoRepository;
+import com.utp.cinerama.cinerama.repository.VentaProductoRepository;
+import com.utp.cinerama.cinerama.service.CompraService;
+import com.utp.cinerama.cinerama.service.MotorAsientos;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Orquesta el proceso de compra completo de forma set-based:
+ * una consulta por tipo de entidad, validación en memoria y escrituras en lote,
+ * de modo que el costo de la transacción no crece con una consulta por ítem del carrito
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CompraServiceImpl implements CompraService {
+
+    private static final String SQL_INSERTAR_BOLETO =
+            "INSERT INTO boletos (cliente_id, funcion_id, asiento_id, precio, estado, fecha_compra) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERTAR_DETALLE =
+            "INSERT INTO detalle_venta_producto (venta_producto_id, producto_id, cantidad) VALUES (?, ?, ?)";
+
+    private final MotorAsientos motorAsientos;
+    private final AsientoRepository asientoRepository;
+    private final ClienteRepository clienteRepository;
+    private final ProductoRepository productoRepository;
+    private final VentaProductoRepository ventaProductoRepository;
+    private final PagoRepository pagoRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public ConfirmacionCompraDTO confirmarCompra(ConfirmarCompraDTO dto) {
+        log.info("Iniciando confirmación de compra para cliente {} - {} asientos",
+                 dto.getClienteId(), dto.getAsientoIds().size());
+
+        // 1. Cargar cliente, función (en memoria) y productos (una consulta)
+        Cliente cliente = clienteRepository.findById(dto.getClienteId())
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente", "id", dto.getClienteId()));
+        Funcion funcion = motorAsientos.mapa(dto.getFuncionId()).getFuncion();
+        Map<Long, Producto> productos = cargarProductos(dto.getProductos() == null ? List.of() :
+                dto.getProductos().stream().map(ConfirmarCompraDTO.DetalleProductoDTO::getProductoId).toList());
+
+        // 2. Confirmar asientos: CAS en memoria (todo o nada) + un único UPDATE
+        List<Asiento> asientos = motorAsientos.confirmarLote(dto.getFuncionId(), dto.getAsientoIds());
+        List<Long> asientoIds = motorAsientos.idsPersistidos(dto.getFuncionId(), asientos);
+        int ocupados = asientoRepository.ocuparEnLote(asientoIds);
+        if (ocupados != asientoIds.size()) {
+            throw new AsientoNoDisponibleException("Algunos asientos seleccionados ya fueron vendidos");
+        }
+
+        // 3. Boletos en lote
+        LocalDateTime fechaCompra = LocalDateTime.now();
+        BigDecimal precioEntrada = funcion.getPrecioEntrada();
+        List<Object[]> filasBoletos = new ArrayList<>(asientos.size());
+        for (Long asientoId : asientoIds) {
+            filasBoletos.add(new Object[]{cliente.getId(), funcion.getId(), asientoId,
+                    precioEntrada.doubleValue(), Boleto.EstadoBoleto.PAGADO.name(), Timestamp.valueOf(fechaCompra)});
+        }
+        List<Long> boletoIds = insertarEnLote(SQL_INSERTAR_BOLETO, filasBoletos);
+        if (boletoIds.size() != filasBoletos.size()) {
+            throw new IllegalStateException("El driver JDBC no devolvió los IDs de los boletos insertados");
+        }
+
+        List<ConfirmacionCompraDTO.BoletoResumenDTO> boletosResumen = new ArrayList<>(asientos.size());
+        for (int i = 0; i < asientos.size(); i++) {
+            boletosResumen.add(ConfirmacionCompraDTO.BoletoResumenDTO.builder()
+                    .boletoId(boletoIds.get(i))
+                    .pelicula(funcion.getPelicula().getTitulo())
+                    .sala(funcion.getSala().getNombre())
+                    .fechaHora(funcion.getFechaHora())
+                    .asiento(asientos.get(i).getCodigoAsiento())
+                    .precio(precioEntrada)
+                    .build());
+        }
+        BigDecimal totalBoletos = precioEntrada.multiply(BigDecimal.valueOf(asientos.size()));
+
+        // 4. Venta de productos (opcional) con sus detalles en lote
+        List<ConfirmacionCompraDTO.ProductoResumenDTO> productosResumen = new ArrayList<>();
+        BigDecimal totalProductos = BigDecimal.ZERO;
+
+        if (dto.getProductos() != null && !dto.getProductos().isEmpty()) {
+            VentaProducto venta = ventaProductoRepository.save(
+                    new VentaProducto(cliente, dto.getMetodoPago(), true));
+
+            List<Object[]> filasDetalles = new ArrayList<>(dto.getProductos().size());
+            for (ConfirmarCompraDTO.DetalleProductoDTO detalle : dto.getProductos()) {
+                Producto producto = productos.get(detalle.getProductoId());
+                filasDetalles.add(new Object[]{venta.getId(), producto.getId(), detalle.getCantidad()});
+
+                BigDecimal precioUnitario = BigDecimal.valueOf(producto.getPrecio());
+                BigDecimal subtotal = precioUnitario.multiply(BigDecimal.valueOf(detalle.getCantidad()));
+
+                productosResumen.add(ConfirmacionCompraDTO.ProductoResumenDTO.builder()
+                        .nombreProducto(producto.getNombre())
+                        .cantidad(detalle.getCantidad())
+                        .precioUnitario(precioUnitario)
+                        .subtotal(subtotal)
+                        .build());
+
+                totalProductos = totalProductos.add(subtotal);
+            }
+            jdbcTemplate.batchUpdate(SQL_INSERTAR_DETALLE, filasDetalles);
+        }
+
+        // 5. Pago
+        BigDecimal montoTotal = totalBoletos.add(totalProductos);
+
+        Pago pago = new Pago();
+        pago.setCliente(cliente);
+        pago.setMonto(montoTotal.doubleValue());
+        pago.setMetodoPago(dto.getMetodoPago());
+        pago.setTipoComprobante("BOLETA"); // Por defecto
+        pago.setEstado(Pago.EstadoPago.COMPLETADO);
+        Pago pagoCreado = pagoRepository.save(pago);
+
+        String numeroConfirmacion = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+
+        log.info("Compra confirmada exitosamente - Confirmación: {} - Total: {}",
+                 numeroConfirmacion, montoTotal);
+
+        return ConfirmacionCompraDTO.builder()
+                .numeroConfirmacion(numeroConfirmacion)
+                .fechaCompra(fechaCompra)
+                .totalPagado(montoTotal)
+                .clienteId(cliente.getId())
+                .nombreCliente(cliente.getNombre())
+                .boletos(boletosResumen)
+                .productos(productosResumen)
+                .pago(ConfirmacionCompraDTO.PagoResumenDTO.builder()
+                        .pagoId(pagoCreado.getId())
+                        .metodoPago(pagoCreado.getMetodoPago())
+                        .estado(pagoCreado.getEstado().name())
+                        .monto(montoTotal)
+                        .fechaPago(fechaCompra)
+                        .build())
+                .build();
+    }
+
+    @Override
+    public TotalCompraDTO calcularTotal(CalcularTotalDTO dto) {
+        log.info("Calculando total para función {} con {} asientos",
+                 dto.getFuncionId(), dto.getAsientoIds().size());
+
+        // 1. Función y asientos desde memoria
+        Funcion funcion = motorAsientos.mapa(dto.getFuncionId()).getFuncion();
+        BigDecimal precioEntrada = funcion.getPrecioEntrada();
+
+        List<TotalCompraDTO.DetalleAsiento> detalleAsientos = new ArrayList<>();
+        for (Long asientoId : dto.getAsientoIds()) {
+            Asiento asiento = motorAsientos.obtenerAsiento(dto.getFuncionId(), asientoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Asiento", "id", asientoId));
+
+            detalleAsientos.add(TotalCompraDTO.DetalleAsiento.builder()
+                    .asientoId(asiento.getId())
+                    .codigoAsiento(asiento.getCodigoAsiento())
+                    .precio(precioEntrada)
+                    .build());
+        }
+        BigDecimal totalBoletos = precioEntrada.multiply(BigDecimal.valueOf(detalleAsientos.size()));
+
+        // 2. Productos (una consulta)
+        List<TotalCompraDTO.DetalleProducto> detalleProductos = new ArrayList<>();
+        BigDecimal totalProductos = BigDecimal.ZERO;
+
+        if (dto.getProductos() != null && !dto.getProductos().isEmpty()) {
+            Map<Long, Producto> productos = cargarProductos(dto.getProductos().stream()
+                    .map(CalcularTotalDTO.DetalleProductoDTO::getProductoId).toList());
+
+            for (CalcularTotalDTO.DetalleProductoDTO detalle : dto.getProductos()) {
+                Producto producto = productos.get(detalle.getProductoId());
+                BigDecimal precioUnitario = BigDecimal.valueOf(producto.getPrecio());
+                BigDecimal subtotal = precioUnitario.multiply(BigDecimal.valueOf(detalle.getCantidad()));
+
+                detalleProductos.add(TotalCompraDTO.DetalleProducto.builder()
+                        .productoId(producto.getId())
+                        .nombreProducto(producto.getNombre())
+                        .cantidad(detalle.getCantidad())
+                        .precioUnitario(precioUnitario)
+                        .subtotal(subtotal)
+                        .build());
+
+                totalProductos = totalProductos.add(subtotal);
+            }
+        }
+
+        BigDecimal totalGeneral = totalBoletos.add(totalProductos);
+
+        log.info("Total calculado: {} (boletos: {}, productos: {})",
+                 totalGeneral, totalBoletos, totalProductos);
+
+        return TotalCompraDTO.builder()
+                .totalBoletos(totalBoletos)
+                .totalProductos(totalProductos)
+                .totalGeneral(totalGeneral)
+                .cantidadBoletos(dto.getAsientoIds().size())
+                .detalleAsientos(detalleAsientos)
+                .detalleProductos(detalleProductos)
+                .build();
+    }
+
+    /**
+     * Carga todos los productos del carrito en una sola consulta
+     * @throws ResourceNotFoundException si alguno no existe
+     */
+    private Map<Long, Producto> cargarProductos(List<Long> productoIds) {
+        if (productoIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Producto> productos = productoRepository.findAllById(productoIds).stream()
+                .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        for (Long productoId : productoIds) {
+            if (!productos.containsKey(productoId)) {
+                throw new ResourceNotFoundException("Producto", "id", productoId);
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * INSERT por lote (una sola ida a la BD) devolviendo los IDs generados en el mismo orden
+     */
+    private List<Long> insertarEnLote(String sql, List<Object[]> filas) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Object[] fila : filas) {
+                    for (int i = 0; i < fila.length; i++) {
+                        ps.setObject(i + 1, fila[i]);
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(filas.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+}
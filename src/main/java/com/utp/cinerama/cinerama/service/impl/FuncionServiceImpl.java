@@ -1,14 +1,24 @@
 package com.utp.cinerama.cinerama.service.impl;
 
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO;
+import com.utp.cinerama.cinerama.event.FuncionCambiadaEvent;
 import com.utp.cinerama.cinerama.exception.BusinessException;
 import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.model.Pelicula;
 import com.utp.cinerama.cinerama.repository.AsientoRepository;
 import com.utp.cinerama.cinerama.repository.BoletoRepository;
 import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import com.utp.cinerama.cinerama.service.AgendaSalas;
+import com.utp.cinerama.cinerama.service.AgendaSalas.Ocupacion;
 import com.utp.cinerama.cinerama.service.AsientoService;
 import com.utp.cinerama.cinerama.service.FuncionService;
+import com.utp.cinerama.cinerama.service.MotorAsientos;
+import com.utp.cinerama.cinerama.service.ProgramadorFunciones;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,12 +40,25 @@ public class FuncionServiceImpl implements FuncionService {
     
     @Autowired
     private BoletoRepository boletoRepository;
+
+    @Autowired
+    private PeliculaRepository peliculaRepository;
     
     @Autowired
     @Lazy // Evitar dependencia circular
     private AsientoService asientoService;
 
-    private static final int BUFFER_LIMPIEZA_MINUTOS = 5;
+    @Autowired
+    private MotorAsientos motorAsientos;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AgendaSalas agendaSalas;
+
+    @Autowired
+    private ProgramadorFunciones programadorFunciones;
 
     @Override
     public List<Funcion> obtenerTodasLasFunciones() {
@@ -50,29 +73,38 @@ public class FuncionServiceImpl implements FuncionService {
     @Override
     @Transactional
     public Funcion crearFuncion(Funcion funcion) {
-        // Validar colisiones de horarios antes de crear
-        validarColisionesHorarios(funcion);
-        
-        // Guardar la función primero
+        // Guardar la función primero (el ID identifica su intervalo en la agenda)
         Funcion funcionCreada = funcionRepository.save(funcion);
         
+        // Validar colisiones de horarios (si hay colisión se revierte el INSERT)
+        validarColisionesHorarios(funcionCreada);
+        
         // ⭐ GENERAR ASIENTOS AUTOMÁTICAMENTE
         asientoService.generarAsientosParaFuncion(funcionCreada.getId());
         
+        eventPublisher.publishEvent(new FuncionCambiadaEvent(funcionCreada.getId()));
         return funcionCreada;
     }
 
     @Override
+    @Transactional
     public Funcion actualizarFuncion(Long id, Funcion funcion) {
         return funcionRepository.findById(id)
                 .map(f -> {
+                    Long salaAnterior = f.getSala().getId();
                     f.setPelicula(funcion.getPelicula());
                     f.setSala(funcion.getSala());
                     f.setFechaHora(funcion.getFechaHora());
-                    f.setAsientosDisponibles(funcion.getAsientosDisponibles());
                     f.setAsientosTotales(funcion.getAsientosTotales());
                     f.setPrecioEntrada(funcion.getPrecioEntrada());
-                    return funcionRepository.save(f);
+                    validarColisionesHorarios(f);
+                    if (!salaAnterior.equals(f.getSala().getId())) {
+                        agendaSalas.liberar(salaAnterior, id);
+                    }
+                    Funcion actualizada = funcionRepository.save(f);
+                    motorAsientos.actualizarFuncion(actualizada);
+                    eventPublisher.publishEvent(new FuncionCambiadaEvent(actualizada.getId()));
+                    return actualizada;
                 })
                 .orElseThrow(() -> new RuntimeException("Función no encontrada"));
     }
@@ -96,7 +128,13 @@ public class FuncionServiceImpl implements FuncionService {
         log.info("Asientos de la función {} eliminados", id);
         
         // 3. Finalmente eliminar la función
+        Long salaId = funcionRepository.findById(id).map(f -> f.getSala().getId()).orElse(null);
         funcionRepository.deleteById(id);
+        if (salaId != null) {
+            agendaSalas.liberar(salaId, id);
+        }
+        motorAsientos.descartarFuncion(id);
+        eventPublisher.publishEvent(new FuncionCambiadaEvent(id));
         log.info("Función {} eliminada exitosamente", id);
     }
     
@@ -125,49 +163,41 @@ public class FuncionServiceImpl implements FuncionService {
         return funcionRepository.findFuncionesDisponiblesByPeliculaId(peliculaId, LocalDateTime.now());
     }
 
+    @Override
+    public LocalDateTime sugerirSiguienteHorario(Long salaId, Long peliculaId, LocalDateTime desde) {
+        Integer duracion = peliculaId != null
+                ? peliculaRepository.findById(peliculaId).map(Pelicula::getDuracion).orElse(null)
+                : null;
+        LocalDateTime inicio = desde != null && desde.isAfter(LocalDateTime.now()) ? desde : LocalDateTime.now();
+        return agendaSalas.siguienteHueco(salaId, inicio, duracion);
+    }
+
+    @Override
+    public ResultadoProgramacionDTO programarFunciones(ProgramacionFuncionesDTO programacion) {
+        return programadorFunciones.programar(programacion);
+    }
+
     /**
      * Valida que no haya colisiones de horarios en la misma sala
      * Considera la duración de la película + buffer de limpieza
+     * La comprobación se hace contra la agenda en memoria de la sala (O(log n), sin recorrer su historial)
      */
     private void validarColisionesHorarios(Funcion nuevaFuncion) {
-        // Si la película no tiene duración definida, usar duración promedio (120 minutos)
-        Integer duracion = nuevaFuncion.getPelicula().getDuracion() != null ? 
-                          nuevaFuncion.getPelicula().getDuracion() : 120;
-        
-        // Calcular hora de inicio y fin de la nueva función (incluyendo buffer de limpieza)
-        LocalDateTime inicioNueva = nuevaFuncion.getFechaHora();
-        LocalDateTime finNueva = inicioNueva.plusMinutes(duracion + BUFFER_LIMPIEZA_MINUTOS);
+        // Si la película no tiene duración definida se usa la duración promedio (120 minutos)
+        Ocupacion nueva = AgendaSalas.ocupacion(
+                nuevaFuncion.getId(), nuevaFuncion.getFechaHora(), nuevaFuncion.getPelicula().getDuracion());
         
-        // Obtener todas las funciones de la misma sala
-        List<Funcion> funcionesExistentes = funcionRepository.findBySalaId(nuevaFuncion.getSala().getId());
-        
-        for (Funcion funcionExistente : funcionesExistentes) {
-            // Saltar si es la misma función (caso de actualización)
-            if (nuevaFuncion.getId() != null && nuevaFuncion.getId().equals(funcionExistente.getId())) {
-                continue;
-            }
-            
-            Integer duracionExistente = funcionExistente.getPelicula().getDuracion() != null ? 
-                                       funcionExistente.getPelicula().getDuracion() : 120;
-            
-            LocalDateTime inicioExistente = funcionExistente.getFechaHora();
-            LocalDateTime finExistente = inicioExistente.plusMinutes(duracionExistente + BUFFER_LIMPIEZA_MINUTOS);
-            
-            // Verificar solapamiento
-            boolean haySolapamiento = inicioNueva.isBefore(finExistente) && finNueva.isAfter(inicioExistente);
-            
-            if (haySolapamiento) {
-                throw new BusinessException(
-                    String.format("Colisión de horarios detectada en la sala %s. " +
-                                "La función a las %s terminaría a las %s, " +
-                                "pero ya existe una función a las %s que ocupa la sala hasta las %s.",
-                                nuevaFuncion.getSala().getNombre(),
-                                inicioNueva,
-                                finNueva,
-                                inicioExistente,
-                                finExistente)
-                );
-            }
-        }
+        agendaSalas.reservar(nuevaFuncion.getSala().getId(), nueva).ifPresent(existente -> {
+            throw new BusinessException(
+                String.format("Colisión de horarios detectada en la sala %s. " +
+                            "La función a las %s terminaría a las %s, " +
+                            "pero ya existe una función a las %s que ocupa la sala hasta las %s.",
+                            nuevaFuncion.getSala().getNombre(),
+                            nueva.inicio(),
+                            nueva.fin(),
+                            existente.inicio(),
+                            existente.fin())
+            );
+        });
     }
-}
\ No newline at end of file
+}
@@ -1,20 +1,33 @@
 package com.utp.cinerama.cinerama.service.impl;
 
+import com.utp.cinerama.cinerama.dto.PagedResponse;
 import com.utp.cinerama.cinerama.dto.SyncResponseDTO;
 import com.utp.cinerama.cinerama.dto.TMDbMovieDTO;
+import com.utp.cinerama.cinerama.event.PeliculaCambiadaEvent;
+import com.utp.cinerama.cinerama.exception.BadRequestException;
+import com.utp.cinerama.cinerama.model.Genero;
 import com.utp.cinerama.cinerama.model.Pelicula;
 import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import com.utp.cinerama.cinerama.repository.PeliculaRepositoryCustom.OrdenCursor;
+import com.utp.cinerama.cinerama.service.CatalogoGeneros;
+import com.utp.cinerama.cinerama.service.IndiceBusquedaPeliculas;
 import com.utp.cinerama.cinerama.service.PeliculaService;
+import com.utp.cinerama.cinerama.service.SincronizadorTMDb;
 import com.utp.cinerama.cinerama.service.TMDbService;
+import com.utp.cinerama.cinerama.util.PaginationUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +38,10 @@ public class PeliculaServiceImpl implements PeliculaService {
 
     private final PeliculaRepository peliculaRepository;
     private final TMDbService tmdbService;
+    private final SincronizadorTMDb sincronizadorTMDb;
+    private final IndiceBusquedaPeliculas indiceBusqueda;
+    private final CatalogoGeneros catalogoGeneros;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<Pelicula> obtenerTodasLasPeliculas() {
@@ -38,7 +55,11 @@ public class PeliculaServiceImpl implements PeliculaService {
 
     @Override
     public Pelicula crearPelicula(Pelicula pelicula) {
-        return peliculaRepository.save(pelicula);
+        catalogoGeneros.asignar(pelicula);
+        Pelicula guardada = peliculaRepository.save(pelicula);
+        indiceBusqueda.indexar(guardada);
+        eventPublisher.publishEvent(new PeliculaCambiadaEvent(guardada.getId()));
+        return guardada;
     }
 
     @Override
@@ -48,12 +69,16 @@ public class PeliculaServiceImpl implements PeliculaService {
                 .map(p -> {
                     p.setTitulo(pelicula.getTitulo());
                     p.setGenero(pelicula.getGenero());
+                    catalogoGeneros.asignar(p);
                     p.setDuracion(pelicula.getDuracion());
                     p.setClasificacion(pelicula.getClasificacion());
                     p.setSinopsis(pelicula.getSinopsis());
                     p.setResumen(pelicula.getResumen());
                     p.setActiva(pelicula.getActiva());
-                    return peliculaRepository.save(p);
+                    Pelicula guardada = peliculaRepository.save(p);
+                    indiceBusqueda.indexar(guardada);
+                    eventPublisher.publishEvent(new PeliculaCambiadaEvent(guardada.getId()));
+                    return guardada;
                 })
                 .orElseThrow(() -> new RuntimeException("Película no encontrada"));
     }
@@ -61,11 +86,16 @@ public class PeliculaServiceImpl implements PeliculaService {
     @Override
     public void eliminarPelicula(Long id) {
         peliculaRepository.deleteById(id);
+        indiceBusqueda.eliminar(id);
+        eventPublisher.publishEvent(new PeliculaCambiadaEvent(id));
     }
 
     @Override
     public List<Pelicula> buscarPorGenero(String genero) {
-        return peliculaRepository.findByGeneroContainingIgnoreCase(genero);
+        // Género conocido: coincidencia exacta por máscara; si no, búsqueda por texto como antes
+        return catalogoGeneros.buscar(genero)
+                .map(g -> indiceBusqueda.filtrarPorGeneros(catalogoGeneros.mascara(g), true, false))
+                .orElseGet(() -> peliculaRepository.findByGeneroContainingIgnoreCase(genero));
     }
 
     @Override
@@ -73,6 +103,35 @@ public class PeliculaServiceImpl implements PeliculaService {
         return peliculaRepository.findByTituloContainingIgnoreCase(titulo);
     }
 
+    @Override
+    public List<Pelicula> buscar(String consulta, int limite, boolean soloActivas) {
+        return indiceBusqueda.buscar(consulta, limite, soloActivas);
+    }
+
+    /**
+     * Filtra por varios géneros (nombre o ID de TMDb) con la máscara de bits en memoria
+     *
+     * @param todos true = AND (todos los géneros), false = OR (alguno)
+     */
+    @Override
+    public List<Pelicula> filtrarPorGeneros(List<String> generos, boolean todos, boolean soloActivas) {
+        long mascara = 0;
+        for (String nombre : generos) {
+            Genero genero = catalogoGeneros.buscar(nombre)
+                    .orElseThrow(() -> new BadRequestException("Género desconocido: " + nombre));
+            mascara |= catalogoGeneros.mascara(genero);
+        }
+        if (mascara == 0) {
+            return List.of();
+        }
+        return indiceBusqueda.filtrarPorGeneros(mascara, todos, soloActivas);
+    }
+
+    @Override
+    public List<Genero> obtenerGeneros() {
+        return catalogoGeneros.listar();
+    }
+
     @Override
     public List<Pelicula> buscarPorClasificacion(String clasificacion) {
         return peliculaRepository.findByClasificacion(clasificacion);
@@ -114,13 +173,94 @@ public class PeliculaServiceImpl implements PeliculaService {
         return peliculaRepository.findAll(pageable);
     }
 
+    /**
+     * Igual que {@link #obtenerPeliculasPaginadas} pero sin la consulta COUNT(*)
+     * (la respuesta no trae totalElements ni totalPages)
+     */
+    @Override
+    public Slice<Pelicula> obtenerPeliculasSinTotal(int page, int size, String sortBy) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortBy).descending());
+        return peliculaRepository.findAllBy(pageable);
+    }
+
+    /**
+     * Paginación por cursor (keyset) para scroll infinito
+     * Cada página filtra por (clave, id) de la última película recibida: sin OFFSET ni COUNT(*)
+     * 
+     * @param orden popularidad | votoPromedio | fechaEstreno | id (siempre descendente)
+     * @param cursor nextCursor de la respuesta anterior (null = primera página)
+     * @param size Cantidad de elementos por página
+     * @param soloActivas Si se excluyen las películas inactivas
+     * @return Página con nextCursor si hay más resultados
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResponse<Pelicula> obtenerPeliculasPorCursor(String orden, String cursor, int size, boolean soloActivas) {
+        OrdenCursor clave = Arrays.stream(OrdenCursor.values())
+                .filter(o -> o.getCampo().equalsIgnoreCase(orden))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException(
+                        "Orden no soportado: " + orden + " (use popularidad, votoPromedio, fechaEstreno o id)"));
+
+        Object valor = null;
+        Long id = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = PaginationUtils.decodificarCursor(cursor, 3);
+            if (!partes[0].equals(clave.name())) {
+                throw new BadRequestException("El cursor no corresponde al orden '" + orden + "'");
+            }
+            try {
+                id = Long.valueOf(partes[2]);
+                if (!partes[1].isEmpty()) {
+                    valor = switch (clave) {
+                        case POPULARIDAD, VOTO_PROMEDIO -> Double.valueOf(partes[1]);
+                        case FECHA_ESTRENO -> LocalDate.parse(partes[1]);
+                        case ID -> null;
+                    };
+                }
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Cursor inválido");
+            }
+        }
+
+        // Se pide una fila de más para saber si hay página siguiente
+        List<Pelicula> filas = peliculaRepository.buscarDespuesDe(clave, valor, id, size + 1, soloActivas);
+        boolean hayMas = filas.size() > size;
+        List<Pelicula> contenido = hayMas ? filas.subList(0, size) : filas;
+
+        String siguiente = null;
+        if (hayMas) {
+            Pelicula ultima = contenido.get(contenido.size() - 1);
+            Object valorUltima = switch (clave) {
+                case POPULARIDAD -> ultima.getPopularidad();
+                case VOTO_PROMEDIO -> ultima.getVotoPromedio();
+                case FECHA_ESTRENO -> ultima.getFechaEstreno();
+                case ID -> null;
+            };
+            siguiente = PaginationUtils.codificarCursor(
+                    clave.name(), valorUltima != null ? valorUltima.toString() : "", ultima.getId().toString());
+        }
+
+        return PagedResponse.<Pelicula>builder()
+                .content(contenido)
+                .pageSize(size)
+                .first(id == null)
+                .last(!hayMas)
+                .hasNext(hayMas)
+                .hasPrevious(id != null)
+                .nextCursor(siguiente)
+                .build();
+    }
+
     /**
      * Busca peliculas por genero con paginacion
      */
     @Override
     public Page<Pelicula> buscarPorGeneroPaginado(String genero, int page, int size) {
         Pageable pageable = PageRequest.of(page, size);
-        return peliculaRepository.findByGeneroContainingIgnoreCase(genero, pageable);
+        return catalogoGeneros.buscar(genero)
+                .map(g -> peliculaRepository.findByGeneros(List.of(g.getId()), 1, pageable))
+                .orElseGet(() -> peliculaRepository.findByGeneroContainingIgnoreCase(genero, pageable));
     }
 
     /**
@@ -180,7 +320,14 @@ public class PeliculaServiceImpl implements PeliculaService {
                 .activa(true) // Por defecto activa al agregarla
                 .build();
         
+        List<Integer> generoIds = tmdbMovie.getGenres() != null && !tmdbMovie.getGenres().isEmpty()
+                ? tmdbMovie.getGenres().stream().map(TMDbMovieDTO.Genre::getId).toList()
+                : tmdbMovie.getGenreIds();
+        catalogoGeneros.asignar(nuevaPelicula, catalogoGeneros.mascaraDeIds(generoIds));
+
         Pelicula guardada = peliculaRepository.save(nuevaPelicula);
+        indiceBusqueda.indexar(guardada);
+        eventPublisher.publishEvent(new PeliculaCambiadaEvent(guardada.getId()));
         log.info("✅ Película agregada exitosamente: {} - Duración: {} min", 
                  guardada.getTitulo(), guardada.getDuracion());
         
@@ -189,79 +336,21 @@ public class PeliculaServiceImpl implements PeliculaService {
 
     /**
      * DEPRECADO: Sincroniza múltiples películas desde TMDb
-     * ⚠️ Este método guarda TODAS las películas y puede saturar la BD
+     * ⚠️ Este método guarda TODAS las películas de las páginas pedidas
+     * Descarga en paralelo y guarda por lotes con commits cortos (ver SincronizadorTMDb)
      * 
-     * @param paginas Número de páginas a sincronizar (1-5 recomendado)
+     * @param paginas Número de páginas a sincronizar (1-500)
      * @return Resultado de la sincronización
      * @deprecated Usar {@link #agregarPeliculaDesdeTMDb(Long)} para control granular
      */
     @Override
-    @Transactional
     @Deprecated
     public SyncResponseDTO sincronizarPeliculasDesdeAPI(Integer paginas) {
         log.info("🚀 Iniciando sincronización de películas desde TMDb (páginas: {})", paginas);
         log.warn("⚠️ DEPRECADO: Considera usar POST /api/peliculas/agregar-desde-tmdb para películas específicas");
-        
-        int peliculasNuevas = 0;
-        int peliculasActualizadas = 0;
-        int peliculasOmitidas = 0;
-        int totalPeliculasAPI = 0;
 
         try {
-            // Validar páginas
-            if (paginas == null || paginas < 1) {
-                paginas = 1;
-            }
-            if (paginas > 5) {
-                paginas = 5; // Limitar a 5 páginas para evitar sobrecarga
-            }
-
-            // Obtener películas de cada página
-            for (int page = 1; page <= paginas; page++) {
-                List<TMDbMovieDTO> moviesFromAPI = tmdbService.getNowPlayingMovies(page);
-                totalPeliculasAPI += moviesFromAPI.size();
-
-                for (TMDbMovieDTO tmdbMovie : moviesFromAPI) {
-                    try {
-                        // Verificar si la película ya existe por tmdbId
-                        Optional<Pelicula> existente = peliculaRepository.findByTmdbId(tmdbMovie.getId());
-
-                        if (existente.isPresent()) {
-                            // Actualizar película existente
-                            Pelicula peliculaExistente = existente.get();
-                            actualizarDesdeTMDb(peliculaExistente, tmdbMovie);
-                            peliculaRepository.save(peliculaExistente);
-                            peliculasActualizadas++;
-                            log.debug("✏️ Actualizada: {}", tmdbMovie.getTitle());
-                        } else {
-                            // Crear nueva película
-                            Pelicula nuevaPelicula = convertirDesdeTMDb(tmdbMovie);
-                            peliculaRepository.save(nuevaPelicula);
-                            peliculasNuevas++;
-                            log.debug("➕ Nueva: {}", tmdbMovie.getTitle());
-                        }
-                    } catch (Exception e) {
-                        peliculasOmitidas++;
-                        log.warn("⚠️ Error al procesar película {}: {}", tmdbMovie.getTitle(), e.getMessage());
-                    }
-                }
-            }
-
-            String mensaje = String.format(
-                "✅ Sincronización completada: %d nuevas, %d actualizadas, %d omitidas de %d totales",
-                peliculasNuevas, peliculasActualizadas, peliculasOmitidas, totalPeliculasAPI
-            );
-            
-            log.info(mensaje);
-
-            return SyncResponseDTO.builder()
-                    .totalPeliculasAPI(totalPeliculasAPI)
-                    .peliculasNuevas(peliculasNuevas)
-                    .peliculasActualizadas(peliculasActualizadas)
-                    .peliculasOmitidas(peliculasOmitidas)
-                    .mensaje(mensaje)
-                    .build();
-
+            return sincronizadorTMDb.sincronizar(paginas == null ? 1 : paginas);
         } catch (Exception e) {
             log.error("❌ Error durante la sincronización: {}", e.getMessage());
             throw new RuntimeException("Error al sincronizar películas: " + e.getMessage(), e);
@@ -269,43 +358,20 @@ public class PeliculaServiceImpl implements PeliculaService {
     }
 
     /**
-     * Convierte un DTO de TMDb a una entidad Pelicula
+     * Sincronización incremental: solo películas del catálogo modificadas en TMDb
+     * desde la última ejecución (feed /movie/changes)
+     *
+     * @return Resultado de la sincronización
      */
-    private Pelicula convertirDesdeTMDb(TMDbMovieDTO tmdbMovie) {
-        return Pelicula.builder()
-                .tmdbId(tmdbMovie.getId())
-                .titulo(tmdbMovie.getTitle())
-                .tituloOriginal(tmdbMovie.getOriginalTitle())
-                .idiomaOriginal(tmdbMovie.getOriginalLanguage())
-                .genero(tmdbService.mapGenreIdsToNames(tmdbMovie.getGenreIds()))
-                .sinopsis(tmdbMovie.getOverview())
-                .resumen(tmdbMovie.getOverview())
-                .popularidad(tmdbMovie.getPopularity())
-                .posterUrl(tmdbMovie.getFullPosterPath())
-                .backdropUrl(tmdbMovie.getFullBackdropPath())
-                .fechaEstreno(tmdbMovie.getReleaseDateAsLocalDate())
-                .votoPromedio(tmdbMovie.getVoteAverage())
-                .totalVotos(tmdbMovie.getVoteCount())
-                .adult(tmdbMovie.getAdult())
-                .activa(true)
-                .build();
-    }
+    @Override
+    public SyncResponseDTO sincronizarCambiosDesdeAPI() {
+        log.info("🔁 Iniciando sincronización incremental desde TMDb");
 
-    /**
-     * Actualiza una película existente con datos de TMDb
-     */
-    private void actualizarDesdeTMDb(Pelicula pelicula, TMDbMovieDTO tmdbMovie) {
-        pelicula.setTitulo(tmdbMovie.getTitle());
-        pelicula.setTituloOriginal(tmdbMovie.getOriginalTitle());
-        pelicula.setIdiomaOriginal(tmdbMovie.getOriginalLanguage());
-        pelicula.setGenero(tmdbService.mapGenreIdsToNames(tmdbMovie.getGenreIds()));
-        pelicula.setResumen(tmdbMovie.getOverview());
-        pelicula.setPopularidad(tmdbMovie.getPopularity());
-        pelicula.setPosterUrl(tmdbMovie.getFullPosterPath());
-        pelicula.setBackdropUrl(tmdbMovie.getFullBackdropPath());
-        pelicula.setFechaEstreno(tmdbMovie.getReleaseDateAsLocalDate());
-        pelicula.setVotoPromedio(tmdbMovie.getVoteAverage());
-        pelicula.setTotalVotos(tmdbMovie.getVoteCount());
-        pelicula.setAdult(tmdbMovie.getAdult());
+        try {
+            return sincronizadorTMDb.sincronizarCambios();
+        } catch (Exception e) {
+            log.error("❌ Error durante la sincronización incremental: {}", e.getMessage());
+            throw new RuntimeException("Error al sincronizar cambios de películas: " + e.getMessage(), e);
+        }
     }
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import com.utp.cinerama.cinerama.model.Usuario;
 import com.utp.cinerama.cinerama.repository.ClienteRepository;
 import com.utp.cinerama.cinerama.repository.RolRepository;
 import com.utp.cinerama.cinerama.repository.UsuarioRepository;
+import com.utp.cinerama.cinerama.security.RevocacionTokens;
 import com.utp.cinerama.cinerama.util.JwtUtil;
 import com.utp.cinerama.cinerama.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
@@ -41,6 +42,7 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final RevocacionTokens revocacionTokens;
 
     @Override
     @Transactional
@@ -311,6 +313,7 @@ public class UsuarioServiceImpl implements UsuarioService {
         // Actualizar contraseña
         usuario.setPassword(passwordEncoder.encode(passwordNueva));
         usuarioRepository.save(usuario);
+        revocacionTokens.revocar(usuario.getUsername(), usuario.getEmail());
 
         log.info("Contrasena actualizada exitosamente");
     }
@@ -325,6 +328,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         usuario.setActivo(activo);
         usuarioRepository.save(usuario);
+        if (!activo) {
+            revocacionTokens.revocar(usuario.getUsername(), usuario.getEmail());
+        }
 
         log.info("Estado actualizado exitosamente");
     }
@@ -0,0 +1,80 @@
+package com.utp.cinerama.cinerama.util;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker simple (CERRADO → ABIERTO → SEMI_ABIERTO)
+ *
+ * - CERRADO: las llamadas pasan; tras N fallos consecutivos se abre
+ * - ABIERTO: las llamadas se rechazan al instante durante el tiempo de apertura
+ * - SEMI_ABIERTO: pasa una sola llamada de prueba; si funciona se cierra, si falla se vuelve a abrir
+ */
+public class CircuitBreaker {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMI_ABIERTO
+    }
+
+    private final int umbralFallos;
+    private final long aperturaNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosConsecutivos;
+    private long abiertoDesde;
+    private boolean pruebaEnCurso;
+    private long rechazadas;
+
+    public CircuitBreaker(int umbralFallos, Duration apertura) {
+        this.umbralFallos = umbralFallos;
+        this.aperturaNanos = apertura.toNanos();
+    }
+
+    /**
+     * Indica si la llamada puede hacerse; si devuelve true, el llamador debe
+     * informar el resultado con registrarExito() o registrarFallo()
+     */
+    public synchronized boolean permitirLlamada() {
+        if (estado == Estado.ABIERTO && System.nanoTime() - abiertoDesde >= aperturaNanos) {
+            estado = Estado.SEMI_ABIERTO;
+            pruebaEnCurso = false;
+        }
+        if (estado == Estado.CERRADO) {
+            return true;
+        }
+        if (estado == Estado.SEMI_ABIERTO && !pruebaEnCurso) {
+            pruebaEnCurso = true;
+            return true;
+        }
+        rechazadas++;
+        return false;
+    }
+
+    public synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallosConsecutivos = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFallo() {
+        fallosConsecutivos++;
+        if (estado == Estado.SEMI_ABIERTO || fallosConsecutivos >= umbralFallos) {
+            estado = Estado.ABIERTO;
+            abiertoDesde = System.nanoTime();
+            pruebaEnCurso = false;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    public synchronized int getFallosConsecutivos() {
+        return fallosConsecutivos;
+    }
+
+    public synchronized long getRechazadas() {
+        return rechazadas;
+    }
+}
@@ -0,0 +1,38 @@
+package com.utp.cinerama.cinerama.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🎭 Distribución de asientos de una sala (tipo Cineplanet)
+ *
+ * - Filas A-J (10 filas máximo), 21 asientos por fila
+ * - Numeración de derecha a izquierda: 21, 20, 19... 01
+ * - Se generan asientos hasta completar la capacidad de la sala
+ */
+public final class DistribucionAsientos {
+
+    public static final int ASIENTOS_POR_FILA = 21; // Máximo por fila (sin contar pasillo)
+    public static final int MAX_FILAS = 10;
+
+    private DistribucionAsientos() {
+    }
+
+    public record Posicion(String fila, int numero) {}
+
+    /**
+     * Posiciones (fila, número) en el orden en que se crean los asientos
+     */
+    public static List<Posicion> generar(int capacidad) {
+        int totalFilas = Math.min(MAX_FILAS, (int) Math.ceil((double) capacidad / ASIENTOS_POR_FILA));
+        List<Posicion> posiciones = new ArrayList<>(Math.min(capacidad, totalFilas * ASIENTOS_POR_FILA));
+
+        for (int f = 0; f < totalFilas && posiciones.size() < capacidad; f++) {
+            String fila = String.valueOf((char) ('A' + f)); // A, B, C, ... J
+            for (int n = ASIENTOS_POR_FILA; n >= 1 && posiciones.size() < capacidad; n--) {
+                posiciones.add(new Posicion(fila, n));
+            }
+        }
+        return posiciones;
+    }
+}
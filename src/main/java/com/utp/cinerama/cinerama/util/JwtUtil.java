@@ -4,13 +4,19 @@ import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilidad para generar y validar tokens JWT
@@ -28,14 +34,24 @@ public class JwtUtil {
     private static final long EXPIRATION_ADMIN = 1000L * 60 * 60 * 8;      // 8 horas para admin
     private static final long EXPIRATION_EMPLEADO = 1000L * 60 * 60 * 4;   // 4 horas para empleado
     private static final long EXPIRATION_CLIENTE = 1000L * 60 * 60;        // 1 hora para cliente
+    public static final long EXPIRATION_MAXIMA = EXPIRATION_ADMIN;
+
+    // 🧠 Máximo de tokens verificados que se mantienen en memoria
+    private static final int MAX_TOKENS_VERIFICADOS = 10_000;
+
+    // Clave y parser se construyen una sola vez (decodificar la clave y armar el parser en cada request es CPU perdida)
+    private final Key signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY));
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+
+    // Claims ya verificados, indexados por SHA-256 del token; cada entrada vive hasta el "exp" del token
+    private final Map<String, Claims> tokensVerificados = new ConcurrentHashMap<>();
 
     /**
      * Obtener la clave de firma desde el secret (Base64)
      * Este metodo centraliza la obtencion de la clave para evitar repeticion de codigo
      */
     private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(SECRET_KEY);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
@@ -86,12 +102,24 @@ public class JwtUtil {
      * Este metodo es la base para extraer informacion especifica
      */
     public Claims extractAllClaims(String token) {
+        String digest = token != null ? digest(token) : null;
+        if (digest != null) {
+            Claims cacheados = tokensVerificados.get(digest);
+            if (cacheados != null) {
+                if (cacheados.getExpiration() == null || cacheados.getExpiration().after(new Date())) {
+                    return cacheados;
+                }
+                // Vencido: se descarta y el parser lanza la ExpiredJwtException de siempre
+                tokensVerificados.remove(digest);
+            }
+        }
+
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            if (digest != null && claims.getExpiration() != null) {
+                guardarVerificado(digest, claims);
+            }
+            return claims;
         } catch (ExpiredJwtException e) {
             log.error("Token expirado: {}", e.getMessage());
             throw e;
@@ -110,6 +138,37 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Guarda los claims verificados respetando el límite de la caché
+     */
+    private void guardarVerificado(String digest, Claims claims) {
+        if (tokensVerificados.size() >= MAX_TOKENS_VERIFICADOS) {
+            purgarTokensVencidos();
+            if (tokensVerificados.size() >= MAX_TOKENS_VERIFICADOS) {
+                return; // Caché llena de tokens vigentes: se verifica sin cachear
+            }
+        }
+        tokensVerificados.put(digest, claims);
+    }
+
+    /**
+     * 🧹 Elimina de la caché los tokens cuyo "exp" ya pasó
+     */
+    @Scheduled(fixedRate = 60000)
+    public void purgarTokensVencidos() {
+        Date ahora = new Date();
+        tokensVerificados.values().removeIf(claims -> claims.getExpiration().before(ahora));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
     /**
      * Extraer username del token
      * El username esta almacenado en el "subject" del JWT
@@ -132,7 +191,7 @@ public class JwtUtil {
      */
     public boolean isTokenExpired(String token) {
         try {
-            return extractAllClaims(token).getExpiration().before(new Date());
+            return isTokenExpired(extractAllClaims(token));
         } catch (ExpiredJwtException e) {
             return true; // Token expirado
         } catch (Exception e) {
@@ -141,6 +200,13 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verificar expiración sobre claims ya extraídos (sin volver a parsear el token)
+     */
+    public boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
+    }
+
     /**
      * Validar token completamente
      * Verifica que el token sea valido y no haya expirado
@@ -1,7 +1,13 @@
 package com.utp.cinerama.cinerama.util;
 
 import com.utp.cinerama.cinerama.dto.PagedResponse;
+import com.utp.cinerama.cinerama.exception.BadRequestException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
 
 /**
  * Utilidad para convertir Page de Spring a PagedResponse personalizado
@@ -13,6 +19,8 @@ import org.springframework.data.domain.Page;
  */
 public class PaginationUtils {
 
+    private static final String SEPARADOR_CURSOR = "|";
+
     /**
      * Convierte Page<T> de Spring a PagedResponse<T>
      * 
@@ -32,4 +40,49 @@ public class PaginationUtils {
                 .hasPrevious(page.hasPrevious())
                 .build();
     }
+
+    /**
+     * Convierte Slice<T> de Spring a PagedResponse<T> sin totales
+     * (Slice evita la consulta COUNT(*); solo sabe si hay pagina siguiente)
+     * 
+     * @param slice Slice de Spring Data
+     * @return PagedResponse para Angular (sin totalElements ni totalPages)
+     */
+    public static <T> PagedResponse<T> toPagedResponse(Slice<T> slice) {
+        return PagedResponse.<T>builder()
+                .content(slice.getContent())
+                .pageNumber(slice.getNumber())
+                .pageSize(slice.getSize())
+                .first(slice.isFirst())
+                .last(slice.isLast())
+                .hasNext(slice.hasNext())
+                .hasPrevious(slice.hasPrevious())
+                .build();
+    }
+
+    /**
+     * Codifica las partes de un cursor en un texto opaco (Base64 URL-safe)
+     */
+    public static String codificarCursor(String... partes) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARADOR_CURSOR, partes).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor generado por {@link #codificarCursor}
+     * 
+     * @throws BadRequestException si el cursor no es válido
+     */
+    public static String[] decodificarCursor(String cursor, int partes) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] valores = texto.split(Pattern.quote(SEPARADOR_CURSOR), -1);
+            if (valores.length != partes) {
+                throw new BadRequestException("Cursor inválido");
+            }
+            return valores;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
 }
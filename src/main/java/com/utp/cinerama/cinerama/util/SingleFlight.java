@@ -0,0 +1,59 @@
+package com.utp.cinerama.cinerama.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa llamadas concurrentes idénticas (misma clave) en una sola ejecución
+ * Mientras una llamada está en vuelo, las demás con la misma clave esperan y reciben su mismo resultado
+ * (o su misma excepción). Al terminar, la clave se libera y la siguiente llamada vuelve a ejecutar.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> enVuelo = new ConcurrentHashMap<>();
+
+    public V ejecutar(K clave, Supplier<V> llamada) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enVuelo.putIfAbsent(clave, propia);
+
+        if (existente != null) {
+            return esperar(existente);
+        }
+
+        try {
+            V resultado = llamada.get();
+            propia.complete(resultado);
+            return resultado;
+        } catch (Throwable e) {
+            // Cualquier fallo (también Error o checked lanzadas a escondidas) debe liberar a los que esperan
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVuelo.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Cantidad de claves con una llamada en curso
+     */
+    public int enCurso() {
+        return enVuelo.size();
+    }
+
+    private V esperar(CompletableFuture<V> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package com.utp.cinerama.cinerama.carga;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.AppenderBase;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utp.cinerama.cinerama.dto.ProgramacionFuncionesDTO;
+import com.utp.cinerama.cinerama.dto.ResultadoProgramacionDTO;
+import com.utp.cinerama.cinerama.model.Cliente;
+import com.utp.cinerama.cinerama.model.Pelicula;
+import com.utp.cinerama.cinerama.model.Rol;
+import com.utp.cinerama.cinerama.model.Sala;
+import com.utp.cinerama.cinerama.model.Usuario;
+import com.utp.cinerama.cinerama.repository.ClienteRepository;
+import com.utp.cinerama.cinerama.repository.PeliculaRepository;
+import com.utp.cinerama.cinerama.repository.RolRepository;
+import com.utp.cinerama.cinerama.repository.SalaRepository;
+import com.utp.cinerama.cinerama.repository.UsuarioRepository;
+import com.utp.cinerama.cinerama.service.FuncionService;
+import com.utp.cinerama.cinerama.service.MotorAsientos;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 🎟️ Simulación de preventa: miles de clientes intentando comprar a la vez el estreno
+ *
+ * - Arranca la aplicación completa sobre H2 en modo MySQL (perfil "carga") y siembra salas,
+ *   una semana de funciones con sus asientos y los clientes, con los mismos servicios que producción
+ * - Cada cliente es un hilo virtual que recorre el flujo real por HTTP: login, mapa de asientos,
+ *   reservar, calcular-total y confirmar. Todos salen a la vez; la mayoría va a la función de estreno
+ * - Si la reserva choca (409) vuelve a leer el mapa y reintenta con otros asientos
+ * - Informe: histogramas de latencia por etapa (HdrHistogram, también en target/carga/*.hgrm),
+ *   throughput, interbloqueos registrados en los logs y comprobación de doble venta contra la BD
+ * - Las métricas (Actuator/Prometheus) quedan activas como en producción: su costo entra en las latencias
+ *
+ * Excluida del build normal: ./mvnw -Pcarga test [-Dcarga.clientes=5000 -Dcarga.salas=12 ...]
+ */
+@Tag("carga")
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("carga")
+class SimulacionPreventaTest {
+
+    private static final int CLIENTES = Integer.getInteger("carga.clientes", 2000);
+    private static final int SALAS = Integer.getInteger("carga.salas", 8);
+    private static final int DIAS = Integer.getInteger("carga.dias", 7);
+    private static final int ASIENTOS_POR_COMPRA = Integer.getInteger("carga.asientos-por-compra", 2);
+    private static final int REINTENTOS = Integer.getInteger("carga.reintentos", 3);
+    private static final double FRACCION_ESTRENO = Double.parseDouble(System.getProperty("carga.fraccion-estreno", "0.8"));
+
+    private static final int CAPACIDAD_SALA = 210;
+    private static final String PASSWORD = "Preventa123";
+    private static final List<LocalTime> HORARIOS =
+            List.of(LocalTime.of(14, 0), LocalTime.of(17, 0), LocalTime.of(20, 0), LocalTime.of(23, 0));
+
+    enum Etapa { LOGIN, MAPA, RESERVAR, CALCULAR_TOTAL, CONFIRMAR }
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired private RolRepository rolRepository;
+    @Autowired private UsuarioRepository usuarioRepository;
+    @Autowired private ClienteRepository clienteRepository;
+    @Autowired private PeliculaRepository peliculaRepository;
+    @Autowired private SalaRepository salaRepository;
+    @Autowired private FuncionService funcionService;
+    @Autowired private MotorAsientos motorAsientos;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final Map<Etapa, Histogram> latencias = new EnumMap<>(Etapa.class);
+    private final Map<Etapa, Map<Integer, LongAdder>> estados = new EnumMap<>(Etapa.class);
+    private final Map<Long, Long> vendidos = new ConcurrentHashMap<>(); // asientoId -> clienteId
+    private final LongAdder dobleVentaCliente = new LongAdder();
+    private final LongAdder compras = new LongAdder();
+    private final LongAdder sinAsientos = new LongAdder();
+    private final LongAdder peticiones = new LongAdder();
+    private final LongAdder erroresRed = new LongAdder();
+
+    private HttpClient http;
+
+    @Test
+    void preventaDelEstreno() throws Exception {
+        for (Etapa etapa : Etapa.values()) {
+            latencias.put(etapa, new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(2), 3));
+            estados.put(etapa, new ConcurrentHashMap<>());
+        }
+
+        long inicioSiembra = System.nanoTime();
+        List<Long> funciones = sembrarCartelera();
+        List<String> usuarios = sembrarClientes();
+        Long estreno = funciones.get(0);
+        System.out.printf("%nSiembra: %d salas, %d funciones, %d asientos, %d clientes en %d ms%n",
+                SALAS, funciones.size(), (long) funciones.size() * CAPACIDAD_SALA, usuarios.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioSiembra));
+
+        ContadorInterbloqueos interbloqueos = ContadorInterbloqueos.registrar();
+        long inicio;
+        long fin;
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient cliente = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build()) {
+            http = cliente;
+            CountDownLatch salida = new CountDownLatch(1);
+            for (String username : usuarios) {
+                clientes.submit(() -> {
+                    salida.await();
+                    ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                    Long funcionId = aleatorio.nextDouble() < FRACCION_ESTRENO
+                            ? estreno
+                            : funciones.get(aleatorio.nextInt(funciones.size()));
+                    comprar(username, funcionId);
+                    return null;
+                });
+            }
+            inicio = System.nanoTime();
+            salida.countDown();
+            clientes.shutdown();
+            assertThat(clientes.awaitTermination(30, TimeUnit.MINUTES)).isTrue();
+            fin = System.nanoTime();
+        } finally {
+            interbloqueos.quitar();
+        }
+
+        motorAsientos.persistirPendientes(); // Vuelca la escritura diferida antes de mirar la BD
+        informar(fin - inicio, estreno, interbloqueos.total());
+        comprobarInvariantes(estreno);
+    }
+
+    // ==================== FLUJO DE UN CLIENTE ====================
+
+    private void comprar(String username, Long funcionId) {
+        try {
+            JsonNode login = enviar(Etapa.LOGIN, "POST", "/api/auth/login", null,
+                    Map.of("username", username, "password", PASSWORD), 200);
+            if (login == null) {
+                return;
+            }
+            String token = login.path("token").asText();
+            long clienteId = login.path("clienteId").asLong();
+
+            for (int intento = 0; intento <= REINTENTOS; intento++) {
+                JsonNode mapa = enviar(Etapa.MAPA, "GET", "/api/asientos/funcion/" + funcionId, token, null, 200);
+                if (mapa == null) {
+                    return;
+                }
+                List<Long> libres = new ArrayList<>();
+                for (JsonNode asiento : mapa) {
+                    if ("DISPONIBLE".equals(asiento.path("estado").asText())) {
+                        libres.add(asiento.path("id").asLong());
+                    }
+                }
+                if (libres.size() < ASIENTOS_POR_COMPRA) {
+                    sinAsientos.increment();
+                    return;
+                }
+                Collections.shuffle(libres, ThreadLocalRandom.current());
+                List<Long> elegidos = List.copyOf(libres.subList(0, ASIENTOS_POR_COMPRA));
+                Map<String, Object> seleccion = Map.of("funcionId", funcionId, "asientoIds", elegidos);
+
+                if (enviar(Etapa.RESERVAR, "POST", "/api/asientos/reservar", token, seleccion, 200) == null) {
+                    continue; // Otro cliente se adelantó: mapa nuevo y otros asientos
+                }
+                if (enviar(Etapa.CALCULAR_TOTAL, "POST", "/api/compras/calcular-total", token, seleccion, 200) == null) {
+                    return;
+                }
+                JsonNode confirmacion = enviar(Etapa.CONFIRMAR, "POST", "/api/compras/confirmar", token, Map.of(
+                        "clienteId", clienteId,
+                        "funcionId", funcionId,
+                        "asientoIds", elegidos,
+                        "metodoPago", "TARJETA"), 201);
+                if (confirmacion != null) {
+                    compras.increment();
+                    for (Long asientoId : elegidos) {
+                        Long previo = vendidos.putIfAbsent(asientoId, clienteId);
+                        if (previo != null && previo != clienteId) {
+                            dobleVentaCliente.increment();
+                        }
+                    }
+                }
+                return;
+            }
+        } catch (IOException e) {
+            erroresRed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ejecuta una petición midiendo su latencia; devuelve el cuerpo si el estado es el esperado
+     */
+    private JsonNode enviar(Etapa etapa, String metodo, String ruta, String token, Object cuerpo, int esperado)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder peticion = HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta))
+                .timeout(Duration.ofMinutes(2))
+                .header("Accept", "application/json");
+        if (token != null) {
+            peticion.header("Authorization", "Bearer " + token);
+        }
+        if (cuerpo != null) {
+            peticion.header("Content-Type", "application/json")
+                    .method(metodo, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(cuerpo)));
+        } else {
+            peticion.method(metodo, HttpRequest.BodyPublishers.noBody());
+        }
+
+        long inicio = System.nanoTime();
+        HttpResponse<byte[]> respuesta = http.send(peticion.build(), HttpResponse.BodyHandlers.ofByteArray());
+        latencias.get(etapa).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - inicio),
+                latencias.get(etapa).getHighestTrackableValue()));
+        peticiones.increment();
+        estados.get(etapa).computeIfAbsent(respuesta.statusCode(), k -> new LongAdder()).increment();
+
+        return respuesta.statusCode() == esperado ? objectMapper.readTree(respuesta.body()) : null;
+    }
+
+    // ==================== SIEMBRA ====================
+
+    /**
+     * Salas + películas + una semana de funciones (con sus asientos) por la programación en bloque
+     *
+     * @return IDs de las funciones; la primera es el estreno (sala 1, primer día, 20:00)
+     */
+    private List<Long> sembrarCartelera() {
+        Pelicula estreno = peliculaRepository.save(pelicula("Estreno de la preventa"));
+        Pelicula cartelera = peliculaRepository.save(pelicula("En cartelera"));
+
+        List<ProgramacionFuncionesDTO.Bloque> bloques = new ArrayList<>();
+        for (int i = 1; i <= SALAS; i++) {
+            Sala sala = new Sala();
+            sala.setNombre("Sala carga " + i);
+            sala.setDescripcion("Sala de la simulación de preventa");
+            sala.setCapacidad(CAPACIDAD_SALA);
+            sala.setTipo(Sala.TipoSala.NORMAL);
+            sala.setActiva(true);
+            sala = salaRepository.save(sala);
+            bloques.add(ProgramacionFuncionesDTO.Bloque.builder()
+                    .salaId(sala.getId())
+                    .peliculaId(i == 1 ? estreno.getId() : cartelera.getId())
+                    .horarios(HORARIOS)
+                    .build());
+        }
+
+        LocalDate manana = LocalDate.now().plusDays(1);
+        ResultadoProgramacionDTO resultado = funcionService.programarFunciones(ProgramacionFuncionesDTO.builder()
+                .fechaInicio(manana)
+                .fechaFin(manana.plusDays(DIAS - 1L))
+                .precioEntrada(new BigDecimal("15.00"))
+                .bloques(bloques)
+                .build());
+        assertThat(resultado.getFuncionesCreadas()).isEqualTo(SALAS * DIAS * HORARIOS.size());
+
+        List<Long> funciones = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT id FROM funciones ORDER BY id", Long.class));
+        Long idEstreno = jdbcTemplate.queryForObject(
+                "SELECT id FROM funciones WHERE pelicula_id = ? AND fecha_hora = ?", Long.class,
+                estreno.getId(), LocalDateTime.of(manana, LocalTime.of(20, 0)));
+        funciones.remove(idEstreno);
+        funciones.add(0, idEstreno);
+        return funciones;
+    }
+
+    private static Pelicula pelicula(String titulo) {
+        return Pelicula.builder()
+                .titulo(titulo)
+                .genero("Acción")
+                .duracion(150)
+                .clasificacion("PG-13")
+                .activa(true)
+                .build();
+    }
+
+    /**
+     * Usuarios con rol cliente; todos comparten la contraseña (un solo hash BCrypt)
+     */
+    private List<String> sembrarClientes() {
+        Rol rolCliente = rolRepository.findByNombre("ROLE_CLIENTE").orElseGet(() -> {
+            Rol rol = new Rol();
+            rol.setNombre("ROLE_CLIENTE");
+            rol.setDescripcion("Cliente del cine");
+            rol.setActivo(true);
+            rol.setFechaCreacion(LocalDateTime.now());
+            return rolRepository.save(rol);
+        });
+        String hash = passwordEncoder.encode(PASSWORD);
+
+        List<Usuario> usuarios = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            usuarios.add(Usuario.builder()
+                    .username("preventa" + i)
+                    .email("preventa" + i + "@cinerama.test")
+                    .password(hash)
+                    .roles(new HashSet<>(Set.of(rolCliente)))
+                    .fechaCreacion(LocalDateTime.now())
+                    .build());
+        }
+        usuarios = usuarioRepository.saveAll(usuarios);
+
+        List<Cliente> clientes = new ArrayList<>(CLIENTES);
+        for (int i = 0; i < CLIENTES; i++) {
+            clientes.add(Cliente.builder()
+                    .usuario(usuarios.get(i))
+                    .nombre("Cliente")
+                    .apellido("Preventa " + i)
+                    .email("preventa" + i + "@cinerama.test")
+                    .telefono(String.format("9%08d", i))
+                    .numeroDocumento(String.format("%08d", i))
+                    .tipoDocumento(Cliente.TipoDocumento.DNI)
+                    .fechaRegistro(LocalDateTime.now())
+                    .build());
+        }
+        clienteRepository.saveAll(clientes);
+        return usuarios.stream().map(Usuario::getUsername).toList();
+    }
+
+    // ==================== INFORME E INVARIANTES ====================
+
+    private void informar(long duracionNanos, Long estreno, long interbloqueos) throws IOException {
+        double segundos = duracionNanos / 1e9;
+        Path carpeta = Files.createDirectories(Path.of("target", "carga"));
+
+        System.out.printf("%n===== PREVENTA: %d clientes (%.0f%% al estreno, funcion %d) =====%n",
+                CLIENTES, FRACCION_ESTRENO * 100, estreno);
+        System.out.printf("%-15s %8s %10s %10s %10s %10s %10s  %s%n",
+                "Etapa", "n", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "estados HTTP");
+        for (Etapa etapa : Etapa.values()) {
+            Histogram h = latencias.get(etapa);
+            Map<Integer, Long> porEstado = new TreeMap<>();
+            estados.get(etapa).forEach((estado, n) -> porEstado.put(estado, n.sum()));
+            System.out.printf("%-15s %8d %10.1f %10.1f %10.1f %10.1f %10.1f  %s%n",
+                    etapa, h.getTotalCount(),
+                    h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                    h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                    h.getMaxValue() / 1000.0, porEstado);
+
+            try (PrintStream salida = new PrintStream(
+                    Files.newOutputStream(carpeta.resolve(etapa.name().toLowerCase() + ".hgrm")))) {
+                h.outputPercentileDistribution(salida, 1000.0); // En ms
+            }
+        }
+
+        System.out.printf("%nDuracion: %.2f s | peticiones: %d (%.0f/s) | compras: %d (%.1f/s) | asientos vendidos: %d%n",
+                segundos, peticiones.sum(), peticiones.sum() / segundos, compras.sum(), compras.sum() / segundos,
+                vendidos.size());
+        System.out.printf("Clientes sin asientos libres: %d | errores de red: %d | interbloqueos en logs: %d%n",
+                sinAsientos.sum(), erroresRed.sum(), interbloqueos);
+        System.out.printf("Histogramas: %s%n%n", carpeta.toAbsolutePath());
+    }
+
+    private void comprobarInvariantes(Long estreno) {
+        Integer asientosDuplicados = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT asiento_id FROM boletos GROUP BY asiento_id HAVING COUNT(*) > 1) d",
+                Integer.class);
+        Integer boletos = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM boletos", Integer.class);
+        Integer boletosSinOcupar = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM boletos b JOIN asientos a ON a.id = b.asiento_id WHERE a.estado <> 'OCUPADO'",
+                Integer.class);
+        Integer disponiblesContador = jdbcTemplate.queryForObject(
+                "SELECT asientos_disponibles FROM funciones WHERE id = ?", Integer.class, estreno);
+        Integer disponiblesReales = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM asientos WHERE funcion_id = ? AND estado = 'DISPONIBLE'", Integer.class, estreno);
+
+        System.out.printf("Invariantes: asientos con >1 boleto=%d, doble venta vista por clientes=%d, " +
+                        "boletos=%d (vendidos %d), boletos sin asiento OCUPADO=%d, disponibles estreno=%d (BD %d)%n",
+                asientosDuplicados, dobleVentaCliente.sum(), boletos, vendidos.size(), boletosSinOcupar,
+                disponiblesContador, disponiblesReales);
+
+        assertThat(asientosDuplicados).as("asientos vendidos dos veces").isZero();
+        assertThat(dobleVentaCliente.sum()).as("asientos confirmados a dos clientes").isZero();
+        assertThat(boletos).as("boletos emitidos = asientos confirmados").isEqualTo(vendidos.size());
+        assertThat(boletosSinOcupar).as("boletos cuyo asiento no quedó OCUPADO").isZero();
+        assertThat(disponiblesContador).as("contador de asientos libres del estreno").isEqualTo(disponiblesReales);
+    }
+
+    /**
+     * Cuenta las excepciones de bloqueo (deadlock, lock timeout) que la aplicación registra en sus logs.
+     * La misma excepción puede registrarse en varias capas: se cuenta una vez
+     */
+    static final class ContadorInterbloqueos extends AppenderBase<ILoggingEvent> {
+
+        private final Set<Throwable> vistas = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        static ContadorInterbloqueos registrar() {
+            LoggerContext contexto = (LoggerContext) LoggerFactory.getILoggerFactory();
+            ContadorInterbloqueos contador = new ContadorInterbloqueos();
+            contador.setContext(contexto);
+            contador.setName("interbloqueos");
+            contador.start();
+            contexto.getLogger(Logger.ROOT_LOGGER_NAME).addAppender(contador);
+            return contador;
+        }
+
+        void quitar() {
+            ((LoggerContext) getContext()).getLogger(Logger.ROOT_LOGGER_NAME).detachAppender(this);
+            stop();
+        }
+
+        long total() {
+            return vistas.size();
+        }
+
+        @Override
+        protected void append(ILoggingEvent evento) {
+            IThrowableProxy proxy = evento.getThrowableProxy();
+            if (!(proxy instanceof ThrowableProxy throwableProxy)) {
+                return;
+            }
+            Throwable error = throwableProxy.getThrowable();
+            for (Throwable causa = error; causa != null; causa = causa.getCause()) {
+                if (esBloqueo(causa)) {
+                    vistas.add(error);
+                    return;
+                }
+            }
+        }
+
+        private static boolean esBloqueo(Throwable causa) {
+            String tipo = causa.getClass().getSimpleName();
+            String mensaje = String.valueOf(causa.getMessage()).toLowerCase();
+            return tipo.contains("DeadlockLoser") || tipo.contains("CannotAcquireLock")
+                    || tipo.contains("PessimisticLock") || tipo.contains("LockTimeout")
+                    || mensaje.contains("deadlock") || mensaje.contains("lock timeout");
+        }
+    }
+}
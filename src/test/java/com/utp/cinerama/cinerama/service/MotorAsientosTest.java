@@ -0,0 +1,333 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.utp.cinerama.cinerama.model.Asiento;
+import com.utp.cinerama.cinerama.model.Asiento.EstadoAsiento;
+import com.utp.cinerama.cinerama.model.Asiento.TipoAsiento;
+import com.utp.cinerama.cinerama.model.Funcion;
+import com.utp.cinerama.cinerama.model.Sala;
+import com.utp.cinerama.cinerama.repository.AsientoRepository;
+import com.utp.cinerama.cinerama.repository.FuncionRepository;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos;
+import com.utp.cinerama.cinerama.util.DistribucionAsientos.Posicion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas del motor de asientos en memoria con repositorios y JdbcTemplate simulados
+ */
+class MotorAsientosTest {
+
+	private static final long FUNCION_ID = 7L;
+
+	private AsientoRepository asientoRepository;
+	private FuncionRepository funcionRepository;
+	private JdbcTemplate jdbcTemplate;
+	private MotorAsientos motor;
+	private Funcion funcion;
+
+	@BeforeEach
+	void crearMotor() {
+		asientoRepository = mock(AsientoRepository.class);
+		funcionRepository = mock(FuncionRepository.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		motor = new MotorAsientos(asientoRepository, funcionRepository, jdbcTemplate,
+				mock(ApplicationEventPublisher.class),
+				new MetricasNegocio(new SimpleMeterRegistry(), 50, Duration.ofMinutes(15)));
+
+		funcion = funcion(FUNCION_ID, false);
+		when(funcionRepository.findById(FUNCION_ID)).thenReturn(Optional.of(funcion));
+		when(asientoRepository.findFuncionIdById(anyLong())).thenReturn(Optional.of(FUNCION_ID));
+	}
+
+	@AfterEach
+	void detenerMotor() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		motor.alDetener();
+	}
+
+	@Test
+	void construyeElMapaDesdeLasFilasGuardadas() {
+		guardadas(
+				asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null),
+				asiento(2L, "A", 2, EstadoAsiento.OCUPADO, null),
+				asiento(3L, "B", 1, EstadoAsiento.BLOQUEADO, null));
+
+		List<Asiento> mapa = motor.obtenerMapa(FUNCION_ID);
+
+		assertEquals(List.of(1L, 2L, 3L), mapa.stream().map(Asiento::getId).toList());
+		assertEquals(List.of("A1", "A2", "B1"), mapa.stream().map(Asiento::getCodigoAsiento).toList());
+		assertEquals(EstadoAsiento.OCUPADO, motor.obtenerAsiento(2L).getEstado());
+		assertTrue(motor.estaDisponible(FUNCION_ID, "A", 1));
+		assertFalse(motor.estaDisponible(FUNCION_ID, "B", 2)); // hueco en la grilla
+	}
+
+	@Test
+	void reservaConfirmaYLiberaPorCas() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null),
+				asiento(2L, "A", 2, EstadoAsiento.DISPONIBLE, null));
+
+		assertEquals(EstadoAsiento.RESERVADO, motor.reservar(1L, 10L).getEstado());
+		assertThrows(IllegalStateException.class, () -> motor.reservar(1L, 11L));
+		assertEquals(EstadoAsiento.OCUPADO, motor.confirmar(1L).getEstado());
+		assertThrows(IllegalStateException.class, () -> motor.liberar(1L));
+
+		motor.reservar(2L, 10L);
+		assertEquals(EstadoAsiento.DISPONIBLE, motor.liberar(2L).getEstado());
+		assertThrows(IllegalStateException.class, () -> motor.confirmar(2L));
+	}
+
+	@Test
+	void soloUnHiloGanaElMismoAsiento() throws Exception {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null));
+		motor.obtenerMapa(FUNCION_ID);
+
+		List<Callable<Boolean>> intentos = new ArrayList<>();
+		for (long cliente = 0; cliente < 32; cliente++) {
+			long id = cliente;
+			intentos.add(() -> {
+				try {
+					motor.reservar(1L, id);
+					return true;
+				} catch (IllegalStateException e) {
+					return false;
+				}
+			});
+		}
+
+		ExecutorService hilos = Executors.newFixedThreadPool(8);
+		try {
+			long ganadores = 0;
+			for (Future<Boolean> intento : hilos.invokeAll(intentos)) {
+				ganadores += intento.get() ? 1 : 0;
+			}
+			assertEquals(1, ganadores);
+		} finally {
+			hilos.shutdownNow();
+		}
+	}
+
+	@Test
+	void reservaPorLoteEsTodoONada() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null),
+				asiento(2L, "A", 2, EstadoAsiento.OCUPADO, null));
+
+		assertThrows(IllegalStateException.class, () -> motor.reservarLote(FUNCION_ID, List.of(1L, 2L), 10L));
+		assertEquals(EstadoAsiento.DISPONIBLE, motor.obtenerAsiento(1L).getEstado());
+	}
+
+	@Test
+	void elRollbackRevierteLaConfirmacion() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null));
+		motor.reservar(1L, 10L);
+
+		TransactionSynchronizationManager.initSynchronization();
+		motor.confirmar(1L);
+		assertEquals(EstadoAsiento.OCUPADO, motor.obtenerAsiento(1L).getEstado());
+
+		List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		sincronizaciones.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+		assertEquals(EstadoAsiento.RESERVADO, motor.obtenerAsiento(1L).getEstado());
+		assertEquals(1, motor.contarPorEstado(FUNCION_ID)[EstadoAsiento.RESERVADO.ordinal()]);
+	}
+
+	@Test
+	void losContadoresSiguenCadaTransicion() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null),
+				asiento(2L, "A", 2, EstadoAsiento.DISPONIBLE, null),
+				asiento(3L, "A", 3, EstadoAsiento.OCUPADO, null));
+
+		assertArrayEquals(conteo(2, 0, 1, 0), motor.contarPorEstado(FUNCION_ID));
+
+		motor.reservar(1L, 10L);
+		motor.reservar(2L, 10L);
+		motor.confirmar(1L);
+		motor.liberar(2L);
+
+		assertArrayEquals(conteo(1, 0, 2, 0), motor.contarPorEstado(FUNCION_ID));
+		assertEquals(1, motor.asientosDisponibles(FUNCION_ID));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void elWriteBehindPersisteLosCambiosEnLote() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null),
+				asiento(2L, "A", 2, EstadoAsiento.DISPONIBLE, null));
+		motor.obtenerMapa(FUNCION_ID);
+		motor.persistirPendientes(); // reconcilia asientos_disponibles de la carga
+		clearInvocations(jdbcTemplate);
+
+		motor.reservar(1L, 10L);
+		motor.persistirPendientes();
+
+		ArgumentCaptor<List<Object[]>> asientos = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(startsWith("UPDATE asientos"), asientos.capture(), any(int[].class));
+		assertEquals(1, asientos.getValue().size());
+		Object[] fila = asientos.getValue().get(0);
+		assertEquals("RESERVADO", fila[0]);
+		assertEquals(10L, fila[1]);
+		assertEquals(1L, fila[4]);
+
+		ArgumentCaptor<List<Object[]>> disponibles = ArgumentCaptor.forClass(List.class);
+		verify(jdbcTemplate).batchUpdate(startsWith("UPDATE funciones"), disponibles.capture());
+		assertArrayEquals(new Object[]{1L, FUNCION_ID}, disponibles.getValue().get(0));
+
+		// Sin cambios nuevos no se escribe nada
+		clearInvocations(jdbcTemplate);
+		motor.persistirPendientes();
+		verifyNoInteractions(jdbcTemplate);
+	}
+
+	@Test
+	void laReservaVencidaSeLiberaEnSuPlazo() {
+		Asiento porVencer = asiento(1L, "A", 1, EstadoAsiento.RESERVADO, LocalDateTime.now().plusNanos(200_000_000));
+		when(funcionRepository.findFuncionesDisponibles(any())).thenReturn(List.of(funcion));
+		when(asientoRepository.findByFuncionIdIn(List.of(FUNCION_ID))).thenReturn(List.of(porVencer));
+
+		motor.reconstruir();
+		assertEquals(EstadoAsiento.RESERVADO, motor.obtenerAsiento(1L).getEstado());
+
+		long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (motor.obtenerAsiento(1L).getEstado() != EstadoAsiento.DISPONIBLE && System.nanoTime() < limite) {
+			Thread.onSpinWait();
+		}
+		assertEquals(EstadoAsiento.DISPONIBLE, motor.obtenerAsiento(1L).getEstado());
+		assertEquals(1, motor.asientosDisponibles(FUNCION_ID));
+	}
+
+	@Test
+	void elBarridoLiberaVencidasConHuecosEnLaUltimaFila() {
+		// Capacidad 40: la fila B queda incompleta (B1 y B2 son huecos de la grilla)
+		List<Posicion> posiciones = DistribucionAsientos.generar(40);
+		List<Asiento> filas = new ArrayList<>();
+		for (int i = 0; i < posiciones.size(); i++) {
+			Posicion posicion = posiciones.get(i);
+			boolean vencida = i == posiciones.size() - 1;
+			filas.add(asiento((long) i + 1, posicion.fila(), posicion.numero(),
+					vencida ? EstadoAsiento.RESERVADO : EstadoAsiento.DISPONIBLE,
+					vencida ? LocalDateTime.now().minusMinutes(1) : null));
+		}
+		guardadas(filas.toArray(Asiento[]::new));
+		motor.obtenerMapa(FUNCION_ID); // sin reconstruir(): la DelayQueue no se procesa
+
+		assertEquals(EstadoAsiento.RESERVADO, motor.obtenerAsiento(40L).getEstado());
+		assertEquals(1, motor.liberarExpirados());
+		assertEquals(EstadoAsiento.DISPONIBLE, motor.obtenerAsiento(40L).getEstado());
+		assertEquals(40, motor.asientosDisponibles(FUNCION_ID));
+	}
+
+	@Test
+	void reconstruirNoPisaFuncionesYaCargadas() {
+		guardadas(asiento(1L, "A", 1, EstadoAsiento.DISPONIBLE, null));
+		motor.reservar(1L, 10L);
+
+		when(funcionRepository.findFuncionesDisponibles(any())).thenReturn(List.of(funcion));
+		motor.reconstruir();
+
+		assertEquals(EstadoAsiento.RESERVADO, motor.obtenerAsiento(1L).getEstado());
+		verify(asientoRepository, never()).findByFuncionIdIn(any());
+	}
+
+	@Test
+	void lasFuncionesDispersasUsanIdsVirtualesHastaReservar() {
+		Funcion dispersa = funcion(9L, true);
+		when(funcionRepository.findById(9L)).thenReturn(Optional.of(dispersa));
+		AtomicLong secuencia = new AtomicLong(500);
+		when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class))).thenAnswer(invocacion -> {
+			((GeneratedKeyHolder) invocacion.getArgument(1)).getKeyList().add(Map.of("id", secuencia.getAndIncrement()));
+			return 1;
+		});
+
+		List<Asiento> mapa = motor.obtenerMapa(9L);
+		assertEquals(dispersa.getSala().getCapacidad(), mapa.size());
+		assertTrue(mapa.stream().allMatch(a -> a.getId() < 0));
+
+		// El ID virtual codifica la función: se resuelve sin consultar la BD
+		Long virtual = mapa.get(0).getId();
+		assertEquals(9L, motor.funcionDeAsiento(virtual).getId());
+		assertThrows(IllegalStateException.class, () -> motor.idPersistido(virtual));
+
+		Asiento reservado = motor.reservar(virtual, 10L);
+		assertEquals(virtual, reservado.getId());
+		assertEquals(500L, motor.idPersistido(virtual));
+		assertEquals(EstadoAsiento.RESERVADO, motor.obtenerAsiento(500L).getEstado());
+		verify(asientoRepository, never()).findFuncionIdById(any());
+	}
+
+	// ========== DATOS DE PRUEBA ==========
+
+	private void guardadas(Asiento... asientos) {
+		when(asientoRepository.findByFuncionIdOrderByFilaAscNumeroAsc(FUNCION_ID)).thenReturn(List.of(asientos));
+	}
+
+	private Asiento asiento(Long id, String fila, int numero, EstadoAsiento estado, LocalDateTime expiracion) {
+		return Asiento.builder()
+				.id(id)
+				.funcion(funcion)
+				.fila(fila)
+				.numero(numero)
+				.tipo(TipoAsiento.NORMAL)
+				.estado(estado)
+				.precio(15.0)
+				.reservadoPor(estado == EstadoAsiento.RESERVADO ? 10L : null)
+				.fechaReserva(expiracion != null ? LocalDateTime.now() : null)
+				.fechaExpiracionReserva(expiracion)
+				.build();
+	}
+
+	private static Funcion funcion(Long id, boolean dispersa) {
+		Sala sala = new Sala();
+		sala.setId(1L);
+		sala.setNombre("Sala 1");
+		sala.setCapacidad(40);
+
+		Funcion funcion = new Funcion();
+		funcion.setId(id);
+		funcion.setSala(sala);
+		funcion.setFechaHora(LocalDateTime.now().plusDays(1));
+		funcion.setAsientosTotales(40);
+		funcion.setAsientosDisponibles(40);
+		funcion.setPrecioEntrada(BigDecimal.valueOf(15));
+		funcion.setAsientosDispersos(dispersa);
+		return funcion;
+	}
+
+	private static long[] conteo(long disponibles, long reservados, long ocupados, long bloqueados) {
+		long[] conteo = new long[EstadoAsiento.values().length];
+		conteo[EstadoAsiento.DISPONIBLE.ordinal()] = disponibles;
+		conteo[EstadoAsiento.RESERVADO.ordinal()] = reservados;
+		conteo[EstadoAsiento.OCUPADO.ordinal()] = ocupados;
+		conteo[EstadoAsiento.BLOQUEADO.ordinal()] = bloqueados;
+		return conteo;
+	}
+}
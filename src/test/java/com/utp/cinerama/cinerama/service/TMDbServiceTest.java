@@ -0,0 +1,127 @@
+package com.utp.cinerama.cinerama.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.utp.cinerama.cinerama.config.CacheConfig;
+import com.utp.cinerama.cinerama.config.TMDbConfig;
+import com.utp.cinerama.cinerama.dto.TMDbMovieDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica contra un servidor HTTP local que TMDbService no multiplique las llamadas a TMDb
+ */
+class TMDbServiceTest {
+
+	private static final String RESPUESTA = """
+			{"page":1,"results":[{"id":550,"title":"El club de la pelea"}],"total_pages":1,"total_results":1}
+			""";
+
+	private static final long LATENCIA_MS = 300;
+
+	private HttpServer servidor;
+	private final AtomicInteger llamadas = new AtomicInteger();
+	private TMDbService tmdbService;
+
+	@BeforeEach
+	void iniciarServidor() throws Exception {
+		servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		servidor.setExecutor(Executors.newCachedThreadPool());
+		servidor.createContext("/movie/now_playing", intercambio -> {
+			llamadas.incrementAndGet();
+			try {
+				Thread.sleep(LATENCIA_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			byte[] cuerpo = RESPUESTA.getBytes(StandardCharsets.UTF_8);
+			intercambio.getResponseHeaders().add("Content-Type", "application/json");
+			intercambio.sendResponseHeaders(200, cuerpo.length);
+			intercambio.getResponseBody().write(cuerpo);
+			intercambio.close();
+		});
+		servidor.start();
+
+		TMDbConfig config = new TMDbConfig();
+		ReflectionTestUtils.setField(config, "apiKey", "test");
+		ReflectionTestUtils.setField(config, "baseUrl", "http://127.0.0.1:" + servidor.getAddress().getPort());
+		ReflectionTestUtils.setField(config, "language", "es-MX");
+		ReflectionTestUtils.setField(config, "region", "PE");
+
+		tmdbService = new TMDbService(new RestTemplate(), config);
+	}
+
+	@AfterEach
+	void detenerServidor() {
+		servidor.stop(0);
+	}
+
+	@Test
+	void llamadasConcurrentesIdenticasCompartenUnaSolaPeticion() throws Exception {
+		int clientes = 20;
+		ExecutorService pool = Executors.newFixedThreadPool(clientes);
+		CountDownLatch largada = new CountDownLatch(1);
+		List<Future<List<TMDbMovieDTO>>> resultados = new ArrayList<>();
+
+		for (int i = 0; i < clientes; i++) {
+			resultados.add(pool.submit(() -> {
+				largada.await();
+				return tmdbService.getNowPlayingMovies(1);
+			}));
+		}
+		largada.countDown();
+
+		for (Future<List<TMDbMovieDTO>> resultado : resultados) {
+			assertEquals(550L, resultado.get(5, TimeUnit.SECONDS).get(0).getId());
+		}
+		pool.shutdown();
+
+		assertEquals(1, llamadas.get());
+	}
+
+	@Test
+	void cacheVencidaSirveDatoViejoMientrasRecargaEnSegundoPlano() throws Exception {
+		CacheConfig cacheConfig = new CacheConfig();
+		String spec = "maximumWeight=100,expireAfterWrite=1h,refreshAfterWrite=1s";
+		ReflectionTestUtils.setField(cacheConfig, "specNowPlaying", spec);
+		ReflectionTestUtils.setField(cacheConfig, "specPopular", spec);
+		ReflectionTestUtils.setField(cacheConfig, "specUpcoming", spec);
+		ReflectionTestUtils.setField(cacheConfig, "specMovieDetails", spec);
+		CacheManager cacheManager = cacheConfig.cacheManager(tmdbService);
+		Cache cache = cacheManager.getCache(CacheConfig.TMDB_NOW_PLAYING);
+
+		assertNotNull(cache.get(1));
+		assertEquals(1, llamadas.get());
+
+		Thread.sleep(1100);
+
+		// Vencido el refresh: responde de inmediato con el valor anterior y recarga en paralelo
+		long inicio = System.nanoTime();
+		assertNotNull(cache.get(1));
+		long transcurridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+		assertTrue(transcurridoMs < LATENCIA_MS, "Debe servir el dato viejo sin esperar a TMDb");
+
+		long limite = System.currentTimeMillis() + 5000;
+		while (llamadas.get() < 2 && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+		}
+		assertEquals(2, llamadas.get());
+	}
+}